@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Compares cold start of the plain jar with the fast-startup build (Spring AOT
+# + AppCDS archive). Needs the database from docker-compose to be up.
+#
+#   scripts/startup-benchmark.sh [runs]
+#
+# Variants: the plain jar without the planner warm-up, the plain jar, and the
+# fast-startup build. For each run it reports the JVM-reported startup time,
+# the wall time until /actuator/health/readiness is UP (warm-up included) and
+# the latency of the first GET /production/suggestions.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+cd "$(dirname "$0")/.."
+
+JAR_NAME=$(mvn -q help:evaluate -Dexpression=project.build.finalName -DforceStdout).jar
+WORK=target/startup-benchmark
+rm -rf "$WORK" && mkdir -p "$WORK"
+
+echo "== building plain jar"
+mvn -B -q -DskipTests package > "$WORK/build-plain.log"
+cp "target/$JAR_NAME" "$WORK/plain.jar"
+
+echo "== building fast-startup jar (AOT)"
+# process-aot starts the application context, hence the log redirection
+mvn -B -q -Pfast-startup -DskipTests package > "$WORK/build-fast.log"
+java -Djarmode=tools -jar "target/$JAR_NAME" extract --destination "$WORK/fast" > /dev/null
+
+FAST_OPTS=(-Dspring.aot.enabled=true -XX:SharedArchiveFile="$WORK/app.jsa")
+
+echo "== training run for the CDS archive"
+java -Dspring.aot.enabled=true -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.context.exit=onRefresh \
+    -jar "$WORK/fast/$JAR_NAME" --server.port=0 > "$WORK/training.log" 2>&1
+
+now_ms() { date +%s%3N; }
+
+run() {
+    local label=$1; shift
+    local log="$WORK/$label.log"
+    local t0 pid ready first started
+    t0=$(now_ms)
+    java "$@" --server.port="$PORT" > "$log" 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; do
+        kill -0 "$pid" 2> /dev/null || { echo "$label: exited, see $log" >&2; return 1; }
+        sleep 0.05
+    done
+    ready=$(( $(now_ms) - t0 ))
+    first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT/production/suggestions")
+    started=$(grep -o 'Started InventoryApiApplication in [0-9.]*' "$log" | awk '{print $NF}')
+    kill "$pid" && wait "$pid" 2> /dev/null || true
+    printf '%-7s started=%6ss ready=%6sms first-request=%ss\n' "$label" "$started" "$ready" "$first"
+}
+
+echo "== $RUNS runs each"
+for i in $(seq 1 "$RUNS"); do
+    run nowarm -jar "$WORK/plain.jar" --production.warmup.enabled=false
+    run plain -jar "$WORK/plain.jar"
+    run fast "${FAST_OPTS[@]}" -jar "$WORK/fast/$JAR_NAME"
+done
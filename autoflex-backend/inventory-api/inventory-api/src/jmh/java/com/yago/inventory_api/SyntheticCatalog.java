@@ -0,0 +1,69 @@
+package com.yago.inventory_api;
+
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.bom.ProductMaterial;
+import com.yago.inventory_api.product.Product;
+import com.yago.inventory_api.rawmaterial.RawMaterial;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Deterministic catalog for benchmarks: one raw material for every five
+ * products, 3 to 12 BOM lines per product drawn with a skew towards a small
+ * set of common materials, prices at scale 2 and quantities at scale 3.
+ */
+public final class SyntheticCatalog {
+
+    public final List<RawMaterial> rawMaterials = new ArrayList<>();
+    public final List<Product> productsByPriceDesc = new ArrayList<>();
+    public final List<BomLine> bomLines = new ArrayList<>();
+    public final Map<Long, List<ProductMaterial>> productMaterialsByProductId = new HashMap<>();
+
+    public SyntheticCatalog(int productCount) {
+        Random random = new Random(productCount);
+        int materialCount = Math.max(10, productCount / 5);
+
+        for (long id = 1; id <= materialCount; id++) {
+            RawMaterial rm = new RawMaterial();
+            rm.setId(id);
+            rm.setCode("RM" + id);
+            rm.setName("Raw material " + id);
+            rm.setStockQuantity(BigDecimal.valueOf(random.nextInt(5_000_000), 3));
+            rawMaterials.add(rm);
+        }
+
+        for (long id = 1; id <= productCount; id++) {
+            Product p = new Product();
+            p.setId(id);
+            p.setCode("P" + id);
+            p.setName("Product " + id);
+            p.setPrice(BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2));
+            productsByPriceDesc.add(p);
+
+            int fanOut = 3 + random.nextInt(10);
+            Set<Integer> used = new HashSet<>();
+            List<ProductMaterial> bom = new ArrayList<>();
+            while (used.size() < fanOut) {
+                int index = (int) (Math.pow(random.nextDouble(), 2) * materialCount);
+                if (!used.add(index)) {
+                    continue;
+                }
+
+                RawMaterial rm = rawMaterials.get(index);
+                BigDecimal required = BigDecimal.valueOf(1 + random.nextInt(25_000), 3);
+                bomLines.add(new BomLine(id, rm.getId(), required));
+
+                ProductMaterial pm = new ProductMaterial();
+                pm.setId((long) bomLines.size());
+                pm.setProduct(p);
+                pm.setRawMaterial(rm);
+                pm.setRequiredQuantity(required);
+                bom.add(pm);
+            }
+            productMaterialsByProductId.put(id, bom);
+        }
+
+        productsByPriceDesc.sort(Comparator.comparing(Product::getPrice).reversed());
+    }
+}
@@ -0,0 +1,77 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.SyntheticCatalog;
+import com.yago.inventory_api.bom.ProductComponentRepository;
+import com.yago.inventory_api.bom.ProductMaterialRepository;
+import com.yago.inventory_api.common.etag.CatalogVersion;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
+import com.yago.inventory_api.product.ProductRepository;
+import com.yago.inventory_api.production.dto.ProductionSuggestionResponse;
+import com.yago.inventory_api.rawmaterial.RawMaterialRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductionPlannerBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int productCount;
+
+    private ProductionCatalogProvider provider;
+    private ProductionService service;
+    private ProductionCatalog catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog data = new SyntheticCatalog(productCount);
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
+        RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
+        when(rawMaterialRepository.findAll()).thenReturn(data.rawMaterials);
+        when(productRepository.findAllByOrderByPriceDesc()).thenReturn(data.productsByPriceDesc);
+        when(productMaterialRepository.findAllBomLines()).thenReturn(data.bomLines);
+
+        ProductionMetrics metrics = new ProductionMetrics(new SimpleMeterRegistry());
+        CatalogVersion catalogVersion = mock(CatalogVersion.class);
+        ProductionCatalogLoader loader = new ProductionCatalogLoader(productRepository, productMaterialRepository,
+                mock(ProductComponentRepository.class), rawMaterialRepository, catalogVersion, metrics);
+        provider = new ProductionCatalogProvider(loader, catalogVersion, metrics);
+        service = new ProductionService(provider, new OptimalPlanner(), metrics);
+        catalog = loader.load();
+    }
+
+    /** Planning plus response mapping against a warm catalog snapshot. */
+    @Benchmark
+    public ProductionSuggestionResponse suggest() {
+        return service.suggest();
+    }
+
+    /** Includes reloading and compiling the snapshot, as after a product write. */
+    @Benchmark
+    public ProductionSuggestionResponse suggestAfterWrite() {
+        provider.onCatalogChanged(CatalogChangedEvent.product(1L));
+        return service.suggest();
+    }
+
+    /** Greedy kernel only, on scaled longs. */
+    @Benchmark
+    public int[] greedyScaled() {
+        return GreedyPlanner.planScaled(catalog, catalog.stockScaled.clone());
+    }
+
+    /** Greedy kernel only, on BigDecimal, for comparison with the scaled path. */
+    @Benchmark
+    public int[] greedyExact() {
+        return GreedyPlanner.planExact(catalog, catalog.stockCopy());
+    }
+}
@@ -0,0 +1,28 @@
+package com.yago.inventory_api.bom;
+
+import java.math.BigDecimal;
+
+public class BomLine {
+
+    private final Long productId;
+    private final Long rawMaterialId;
+    private final BigDecimal requiredQuantity;
+
+    public BomLine(Long productId, Long rawMaterialId, BigDecimal requiredQuantity) {
+        this.productId = productId;
+        this.rawMaterialId = rawMaterialId;
+        this.requiredQuantity = requiredQuantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getRawMaterialId() {
+        return rawMaterialId;
+    }
+
+    public BigDecimal getRequiredQuantity() {
+        return requiredQuantity;
+    }
+}
@@ -0,0 +1,28 @@
+package com.yago.inventory_api.bom;
+
+import java.math.BigDecimal;
+
+public class ComponentLine {
+
+    private final Long productId;
+    private final Long componentProductId;
+    private final BigDecimal requiredQuantity;
+
+    public ComponentLine(Long productId, Long componentProductId, BigDecimal requiredQuantity) {
+        this.productId = productId;
+        this.componentProductId = componentProductId;
+        this.requiredQuantity = requiredQuantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getComponentProductId() {
+        return componentProductId;
+    }
+
+    public BigDecimal getRequiredQuantity() {
+        return requiredQuantity;
+    }
+}
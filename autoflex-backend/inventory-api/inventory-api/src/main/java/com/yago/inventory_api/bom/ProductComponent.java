@@ -0,0 +1,65 @@
+package com.yago.inventory_api.bom;
+
+import com.yago.inventory_api.product.Product;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/**
+ * BOM line whose input is another product (a sub-assembly) instead of a
+ * raw material.
+ */
+@Entity
+@Table(name = "product_components", uniqueConstraints = @UniqueConstraint(columnNames = { "product_id",
+        "component_product_id" }))
+
+public class ProductComponent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "component_product_id", nullable = false)
+    private Product component;
+
+    @Column(name = "required_quantity", nullable = false, precision = 18, scale = 3)
+    @NotNull
+    private BigDecimal requiredQuantity;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public Product getComponent() {
+        return component;
+    }
+
+    public void setComponent(Product component) {
+        this.component = component;
+    }
+
+    public BigDecimal getRequiredQuantity() {
+        return requiredQuantity;
+    }
+
+    public void setRequiredQuantity(BigDecimal requiredQuantity) {
+        this.requiredQuantity = requiredQuantity;
+    }
+}
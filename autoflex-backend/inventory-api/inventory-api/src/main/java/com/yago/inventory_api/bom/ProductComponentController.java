@@ -0,0 +1,38 @@
+package com.yago.inventory_api.bom;
+
+import com.yago.inventory_api.bom.dto.ProductComponentCreateRequest;
+import com.yago.inventory_api.bom.dto.ProductComponentResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/products/{productId}/components")
+public class ProductComponentController {
+
+    private final ProductComponentService service;
+
+    public ProductComponentController(ProductComponentService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ProductComponentResponse add(@PathVariable Long productId,
+            @Valid @RequestBody ProductComponentCreateRequest req) {
+        return service.addToProduct(productId, req);
+    }
+
+    @GetMapping
+    public List<ProductComponentResponse> list(@PathVariable Long productId) {
+        return service.listByProduct(productId);
+    }
+
+    @DeleteMapping("/{productComponentId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void remove(@PathVariable Long productId, @PathVariable Long productComponentId) {
+        service.removeFromProduct(productId, productComponentId);
+    }
+}
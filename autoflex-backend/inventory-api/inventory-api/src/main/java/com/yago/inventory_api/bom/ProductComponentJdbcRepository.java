@@ -0,0 +1,95 @@
+package com.yago.inventory_api.bom;
+
+import com.yago.inventory_api.bom.dto.ProductComponentResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes to the sub-assembly graph. Every write takes one transaction-level
+ * advisory lock first, so the cycle check and the insert that follows it
+ * cannot interleave with another write to the graph.
+ */
+@Repository
+public class ProductComponentJdbcRepository {
+
+    private static final long GRAPH_LOCK_KEY = "product_components".hashCode();
+
+    private final JdbcTemplate jdbc;
+
+    public ProductComponentJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    void lockGraph() {
+        jdbc.query("select pg_advisory_xact_lock(?)", rs -> null, GRAPH_LOCK_KEY);
+    }
+
+    /** Whether {@code to} is {@code from} or one of its (transitive) components. */
+    boolean reaches(Long from, Long to) {
+        Boolean found = jdbc.queryForObject("""
+                with recursive reachable(id) as (
+                    select ?::bigint
+                    union
+                    select pc.component_product_id
+                    from product_components pc
+                    join reachable r on pc.product_id = r.id
+                )
+                select exists(select 1 from reachable where id = ?)
+                """, Boolean.class, from, to);
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * Adds one component line. Returns empty when either product is missing
+     * or the line already exists.
+     */
+    Optional<ProductComponentResponse> insertOne(Long productId, Long componentProductId,
+            BigDecimal requiredQuantity) {
+        return jdbc.query("""
+                with ins as (
+                    insert into product_components (product_id, component_product_id, required_quantity)
+                    select p.id, c.id, ?
+                    from products p, products c
+                    where p.id = ? and c.id = ?
+                    on conflict (product_id, component_product_id) do nothing
+                    returning id, component_product_id, required_quantity
+                )
+                select ins.id, ins.component_product_id, c.code, c.name, ins.required_quantity
+                from ins
+                join products c on c.id = ins.component_product_id
+                """, (rs, i) -> toResponse(rs, productId), requiredQuantity, productId, componentProductId)
+                .stream().findFirst();
+    }
+
+    /** Deletes one line and returns its component id, or empty when there was no such line. */
+    Optional<Long> deleteOne(Long productId, Long id) {
+        return jdbc.queryForList(
+                "delete from product_components where id = ? and product_id = ? returning component_product_id",
+                Long.class, id, productId).stream().findFirst();
+    }
+
+    boolean productExists(Long productId) {
+        return !jdbc.queryForList("select id from products where id = ?", Long.class, productId).isEmpty();
+    }
+
+    List<ProductComponentResponse> findResponses(Long productId) {
+        return jdbc.query("""
+                select pc.id, pc.component_product_id, c.code, c.name, pc.required_quantity
+                from product_components pc
+                join products c on c.id = pc.component_product_id
+                where pc.product_id = ?
+                order by pc.id
+                """, (rs, i) -> toResponse(rs, productId), productId);
+    }
+
+    private static ProductComponentResponse toResponse(ResultSet rs, Long productId) throws SQLException {
+        return new ProductComponentResponse(rs.getLong(1), productId, rs.getLong(2), rs.getString(3),
+                rs.getString(4), rs.getBigDecimal(5));
+    }
+}
@@ -0,0 +1,15 @@
+package com.yago.inventory_api.bom;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
+
+public interface ProductComponentRepository extends JpaRepository<ProductComponent, Long> {
+
+    @Query("""
+            select new com.yago.inventory_api.bom.ComponentLine(pc.product.id, pc.component.id, pc.requiredQuantity)
+            from ProductComponent pc
+            order by pc.product.id, pc.id
+            """)
+    List<ComponentLine> findAllComponentLines();
+}
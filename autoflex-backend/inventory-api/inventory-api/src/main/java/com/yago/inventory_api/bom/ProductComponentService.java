@@ -0,0 +1,75 @@
+package com.yago.inventory_api.bom;
+
+import com.yago.inventory_api.bom.dto.ProductComponentCreateRequest;
+import com.yago.inventory_api.bom.dto.ProductComponentResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
+import com.yago.inventory_api.common.exception.ConflictException;
+import com.yago.inventory_api.common.exception.NotFoundException;
+
+import java.util.List;
+
+@Service
+public class ProductComponentService {
+
+    private final ProductComponentJdbcRepository jdbcRepository;
+    private final ApplicationEventPublisher events;
+
+    public ProductComponentService(ProductComponentJdbcRepository jdbcRepository, ApplicationEventPublisher events) {
+        this.jdbcRepository = jdbcRepository;
+        this.events = events;
+    }
+
+    /**
+     * Adds a sub-assembly to a product. Rejected with 409 when the product
+     * is already, directly or not, a component of the new sub-assembly.
+     */
+    @Transactional
+    public ProductComponentResponse addToProduct(Long productId, ProductComponentCreateRequest req) {
+        if (productId.equals(req.componentProductId)) {
+            throw new IllegalArgumentException("A product cannot be a component of itself.");
+        }
+
+        jdbcRepository.lockGraph();
+        if (jdbcRepository.reaches(req.componentProductId, productId)) {
+            throw new ConflictException("Adding this component would create a cycle.");
+        }
+
+        ProductComponentResponse added = jdbcRepository
+                .insertOne(productId, req.componentProductId, req.requiredQuantity)
+                .orElseThrow(() -> rejectedAdd(productId, req.componentProductId));
+
+        events.publishEvent(CatalogChangedEvent.productMaterial(productId, null));
+        return added;
+    }
+
+    private RuntimeException rejectedAdd(Long productId, Long componentProductId) {
+        if (!jdbcRepository.productExists(productId)) {
+            return new NotFoundException("Product not found.");
+        }
+        if (!jdbcRepository.productExists(componentProductId)) {
+            return new NotFoundException("Component product not found.");
+        }
+        return new ConflictException("Component already added to this product.");
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductComponentResponse> listByProduct(Long productId) {
+        if (!jdbcRepository.productExists(productId)) {
+            throw new NotFoundException("Product not found.");
+        }
+        return jdbcRepository.findResponses(productId);
+    }
+
+    @Transactional
+    public void removeFromProduct(Long productId, Long productComponentId) {
+        jdbcRepository.lockGraph();
+        jdbcRepository.deleteOne(productId, productComponentId)
+                .orElseThrow(() -> new NotFoundException("Product component not found."));
+
+        events.publishEvent(CatalogChangedEvent.productMaterial(productId, null));
+    }
+}
@@ -4,9 +4,13 @@ import com.yago.inventory_api.product.Product;
 import com.yago.inventory_api.rawmaterial.RawMaterial;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product-materials")
 @Table(name = "product_materials", uniqueConstraints = @UniqueConstraint(columnNames = { "product_id",
         "raw_material_id" }))
 
@@ -31,6 +31,12 @@ public class ProductMaterialController {
         return service.listByProduct(productId);
     }
 
+    @PutMapping
+    public List<ProductMaterialResponse> replace(@PathVariable Long productId,
+            @Valid @RequestBody List<@Valid ProductMaterialCreateRequest> lines) {
+        return service.replaceMaterials(productId, lines);
+    }
+
     @PutMapping("/{productMaterialId}")
     public ProductMaterialResponse update(
             @PathVariable Long productId,
@@ -0,0 +1,142 @@
+package com.yago.inventory_api.bom;
+
+import com.yago.inventory_api.bom.dto.ProductMaterialResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Set-based BOM writes that bypass the persistence context, so a whole
+ * recipe can be replaced with a handful of batched statements and a single
+ * line is written with one statement.
+ */
+@Repository
+public class ProductMaterialJdbcRepository {
+
+    record Row(long id, long rawMaterialId, BigDecimal requiredQuantity) {
+    }
+
+    private final JdbcTemplate jdbc;
+
+    public ProductMaterialJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Locks the product row so concurrent replaces of the same BOM run one
+     * after the other. Returns false when the product does not exist.
+     */
+    boolean lockProduct(Long productId) {
+        return !jdbc.queryForList("select id from products where id = ? for update", Long.class, productId)
+                .isEmpty();
+    }
+
+    List<Row> findRows(Long productId) {
+        return jdbc.query("""
+                select id, raw_material_id, required_quantity
+                from product_materials
+                where product_id = ?
+                """,
+                (rs, i) -> new Row(rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3)), productId);
+    }
+
+    Set<Long> findExistingRawMaterialIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList("select id from raw_materials where id = any(?)", Long.class,
+                (Object) ids.toArray(new Long[0])));
+    }
+
+    void deleteByIds(List<Long> ids) {
+        jdbc.batchUpdate("delete from product_materials where id = ?", ids, ids.size(),
+                (ps, id) -> ps.setLong(1, id));
+    }
+
+    void updateRequiredQuantities(List<Row> rows) {
+        jdbc.batchUpdate("update product_materials set required_quantity = ? where id = ?", rows, rows.size(),
+                (ps, row) -> {
+                    ps.setBigDecimal(1, row.requiredQuantity());
+                    ps.setLong(2, row.id());
+                });
+    }
+
+    void insert(Long productId, List<Row> rows) {
+        jdbc.batchUpdate("""
+                insert into product_materials (product_id, raw_material_id, required_quantity)
+                values (?, ?, ?)
+                """, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, productId);
+            ps.setLong(2, row.rawMaterialId());
+            ps.setBigDecimal(3, row.requiredQuantity());
+        });
+    }
+
+    /**
+     * Adds one line in a single statement. Returns empty when the product or
+     * raw material is missing, or the line already exists.
+     */
+    Optional<ProductMaterialResponse> insertOne(Long productId, Long rawMaterialId, BigDecimal requiredQuantity) {
+        return jdbc.query("""
+                with ins as (
+                    insert into product_materials (product_id, raw_material_id, required_quantity)
+                    select p.id, rm.id, ?
+                    from products p, raw_materials rm
+                    where p.id = ? and rm.id = ?
+                    on conflict (product_id, raw_material_id) do nothing
+                    returning id, raw_material_id, required_quantity
+                )
+                select ins.id, ins.raw_material_id, rm.code, rm.name, ins.required_quantity
+                from ins
+                join raw_materials rm on rm.id = ins.raw_material_id
+                """, (rs, i) -> toResponse(rs, productId), requiredQuantity, productId, rawMaterialId)
+                .stream().findFirst();
+    }
+
+    Optional<ProductMaterialResponse> updateRequiredQuantity(Long productId, Long id, BigDecimal requiredQuantity) {
+        return jdbc.query("""
+                with upd as (
+                    update product_materials set required_quantity = ?
+                    where id = ? and product_id = ?
+                    returning id, raw_material_id, required_quantity
+                )
+                select upd.id, upd.raw_material_id, rm.code, rm.name, upd.required_quantity
+                from upd
+                join raw_materials rm on rm.id = upd.raw_material_id
+                """, (rs, i) -> toResponse(rs, productId), requiredQuantity, id, productId)
+                .stream().findFirst();
+    }
+
+    /** Deletes one line and returns its raw material id, or empty when there was no such line. */
+    Optional<Long> deleteOne(Long productId, Long id) {
+        return jdbc.queryForList("delete from product_materials where id = ? and product_id = ? returning raw_material_id",
+                Long.class, id, productId).stream().findFirst();
+    }
+
+    boolean productExists(Long productId) {
+        return !jdbc.queryForList("select id from products where id = ?", Long.class, productId).isEmpty();
+    }
+
+    boolean rawMaterialExists(Long rawMaterialId) {
+        return !jdbc.queryForList("select id from raw_materials where id = ?", Long.class, rawMaterialId).isEmpty();
+    }
+
+    List<ProductMaterialResponse> findResponses(Long productId) {
+        return jdbc.query("""
+                select pm.id, pm.raw_material_id, rm.code, rm.name, pm.required_quantity
+                from product_materials pm
+                join raw_materials rm on rm.id = pm.raw_material_id
+                where pm.product_id = ?
+                order by pm.id
+                """, (rs, i) -> toResponse(rs, productId), productId);
+    }
+
+    private static ProductMaterialResponse toResponse(ResultSet rs, Long productId) throws SQLException {
+        return new ProductMaterialResponse(rs.getLong(1), productId, rs.getLong(2), rs.getString(3),
+                rs.getString(4), rs.getBigDecimal(5));
+    }
+}
@@ -1,14 +1,28 @@
 package com.yago.inventory_api.bom;
 
+import com.yago.inventory_api.bom.dto.ProductMaterialResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
-import java.util.Optional;
 
 public interface ProductMaterialRepository extends JpaRepository<ProductMaterial, Long> {
 
     List<ProductMaterial> findByProductId(Long productId);
 
-    Optional<ProductMaterial> findByIdAndProductId(Long id, Long productId);
+    @Query("""
+            select new com.yago.inventory_api.bom.dto.ProductMaterialResponse(
+                pm.id, pm.product.id, rm.id, rm.code, rm.name, pm.requiredQuantity)
+            from ProductMaterial pm
+            join pm.rawMaterial rm
+            where pm.product.id = :productId
+            order by pm.id
+            """)
+    List<ProductMaterialResponse> findResponsesByProductId(Long productId);
 
-    boolean existsByProductIdAndRawMaterialId(Long productId, Long rawMaterialId);
-}
\ No newline at end of file
+    @Query("""
+            select new com.yago.inventory_api.bom.BomLine(pm.product.id, pm.rawMaterial.id, pm.requiredQuantity)
+            from ProductMaterial pm
+            order by pm.product.id, pm.id
+            """)
+    List<BomLine> findAllBomLines();
+}
@@ -3,94 +3,141 @@ package com.yago.inventory_api.bom;
 import com.yago.inventory_api.bom.dto.ProductMaterialCreateRequest;
 import com.yago.inventory_api.bom.dto.ProductMaterialResponse;
 import com.yago.inventory_api.bom.dto.ProductMaterialUpdateRequest;
-import com.yago.inventory_api.product.Product;
 import com.yago.inventory_api.product.ProductRepository;
-import com.yago.inventory_api.rawmaterial.RawMaterial;
-import com.yago.inventory_api.rawmaterial.RawMaterialRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.yago.inventory_api.common.cache.EntityCacheEvictor;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
 import com.yago.inventory_api.common.exception.ConflictException;
 import com.yago.inventory_api.common.exception.NotFoundException;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.*;
 
 @Service
 public class ProductMaterialService {
 
     private final ProductMaterialRepository productMaterialRepository;
     private final ProductRepository productRepository;
-    private final RawMaterialRepository rawMaterialRepository;
+    private final ProductMaterialJdbcRepository jdbcRepository;
+    private final EntityCacheEvictor cacheEvictor;
+    private final ApplicationEventPublisher events;
 
     public ProductMaterialService(
             ProductMaterialRepository productMaterialRepository,
             ProductRepository productRepository,
-            RawMaterialRepository rawMaterialRepository) {
+            ProductMaterialJdbcRepository jdbcRepository,
+            EntityCacheEvictor cacheEvictor,
+            ApplicationEventPublisher events) {
         this.productMaterialRepository = productMaterialRepository;
         this.productRepository = productRepository;
-        this.rawMaterialRepository = rawMaterialRepository;
+        this.jdbcRepository = jdbcRepository;
+        this.cacheEvictor = cacheEvictor;
+        this.events = events;
     }
 
     @Transactional
     public ProductMaterialResponse addToProduct(Long productId, ProductMaterialCreateRequest req) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new NotFoundException("Product not found."));
+        ProductMaterialResponse added = jdbcRepository
+                .insertOne(productId, req.rawMaterialId, req.requiredQuantity)
+                .orElseThrow(() -> rejectedAdd(productId, req.rawMaterialId));
 
-        RawMaterial rawMaterial = rawMaterialRepository.findById(req.rawMaterialId)
-                .orElseThrow(() -> new NotFoundException("Raw material not found."));
+        events.publishEvent(CatalogChangedEvent.productMaterial(productId, req.rawMaterialId));
+        return added;
+    }
+
+    // the insert only says nothing was written; find out why, checking in the old order
+    private RuntimeException rejectedAdd(Long productId, Long rawMaterialId) {
+        if (!jdbcRepository.productExists(productId)) {
+            return new NotFoundException("Product not found.");
+        }
+        if (!jdbcRepository.rawMaterialExists(rawMaterialId)) {
+            return new NotFoundException("Raw material not found.");
+        }
+        return new ConflictException("Raw material already added to this product.");
+    }
+
+    /**
+     * Replaces the whole BOM of a product: the desired lines are diffed
+     * against the current rows and only the differences are written, as one
+     * batch per statement kind.
+     */
+    @Transactional
+    public List<ProductMaterialResponse> replaceMaterials(Long productId, List<ProductMaterialCreateRequest> lines) {
+        Map<Long, BigDecimal> desired = new LinkedHashMap<>();
+        for (ProductMaterialCreateRequest line : lines) {
+            if (desired.put(line.rawMaterialId, line.requiredQuantity) != null) {
+                throw new IllegalArgumentException("Raw material " + line.rawMaterialId + " is listed more than once.");
+            }
+        }
+
+        if (!jdbcRepository.lockProduct(productId)) {
+            throw new NotFoundException("Product not found.");
+        }
 
-        if (productMaterialRepository.existsByProductIdAndRawMaterialId(productId, req.rawMaterialId)) {
-            throw new ConflictException("Raw material already added to this product.");
+        List<Long> deletes = new ArrayList<>();
+        List<ProductMaterialJdbcRepository.Row> updates = new ArrayList<>();
+        for (ProductMaterialJdbcRepository.Row row : jdbcRepository.findRows(productId)) {
+            BigDecimal quantity = desired.remove(row.rawMaterialId());
+            if (quantity == null) {
+                deletes.add(row.id());
+            } else if (quantity.compareTo(row.requiredQuantity()) != 0) {
+                updates.add(new ProductMaterialJdbcRepository.Row(row.id(), row.rawMaterialId(), quantity));
+            }
         }
 
-        ProductMaterial pm = new ProductMaterial();
-        pm.setProduct(product);
-        pm.setRawMaterial(rawMaterial);
-        pm.setRequiredQuantity(req.requiredQuantity);
+        Set<Long> existing = jdbcRepository.findExistingRawMaterialIds(desired.keySet());
+        List<ProductMaterialJdbcRepository.Row> inserts = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> e : desired.entrySet()) {
+            if (!existing.contains(e.getKey())) {
+                throw new NotFoundException("Raw material not found: " + e.getKey() + ".");
+            }
+            inserts.add(new ProductMaterialJdbcRepository.Row(0, e.getKey(), e.getValue()));
+        }
+
+        jdbcRepository.deleteByIds(deletes);
+        jdbcRepository.updateRequiredQuantities(updates);
+        jdbcRepository.insert(productId, inserts);
+
+        List<Long> changedIds = new ArrayList<>(deletes);
+        updates.forEach(row -> changedIds.add(row.id()));
+        cacheEvictor.evict(ProductMaterial.class, changedIds);
 
-        ProductMaterial saved = productMaterialRepository.save(pm);
-        return toResponse(saved);
+        if (!deletes.isEmpty() || !updates.isEmpty() || !inserts.isEmpty()) {
+            events.publishEvent(CatalogChangedEvent.productMaterial(productId, null));
+        }
+        return jdbcRepository.findResponses(productId);
     }
 
+    @Transactional(readOnly = true)
     public List<ProductMaterialResponse> listByProduct(Long productId) {
         if (!productRepository.existsById(productId)) {
             throw new NotFoundException("Product not found.");
         }
 
-        return productMaterialRepository.findByProductId(productId)
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        return productMaterialRepository.findResponsesByProductId(productId);
     }
 
     @Transactional
     public ProductMaterialResponse updateRequiredQuantity(Long productId, Long productMaterialId,
             ProductMaterialUpdateRequest req) {
-        ProductMaterial pm = productMaterialRepository.findByIdAndProductId(productMaterialId, productId)
+        ProductMaterialResponse updated = jdbcRepository
+                .updateRequiredQuantity(productId, productMaterialId, req.requiredQuantity)
                 .orElseThrow(() -> new NotFoundException("Product material not found."));
 
-        pm.setRequiredQuantity(req.requiredQuantity);
-
-        ProductMaterial saved = productMaterialRepository.save(pm);
-        return toResponse(saved);
+        cacheEvictor.evict(ProductMaterial.class, List.of(productMaterialId));
+        events.publishEvent(CatalogChangedEvent.productMaterial(productId, updated.rawMaterialId));
+        return updated;
     }
 
     @Transactional
     public void removeFromProduct(Long productId, Long productMaterialId) {
-        ProductMaterial pm = productMaterialRepository.findByIdAndProductId(productMaterialId, productId)
+        Long rawMaterialId = jdbcRepository.deleteOne(productId, productMaterialId)
                 .orElseThrow(() -> new NotFoundException("Product material not found."));
 
-        productMaterialRepository.delete(pm);
-    }
-
-    private ProductMaterialResponse toResponse(ProductMaterial pm) {
-        ProductMaterialResponse r = new ProductMaterialResponse();
-        r.id = pm.getId();
-        r.productId = pm.getProduct().getId();
-        r.rawMaterialId = pm.getRawMaterial().getId();
-        r.rawMaterialCode = pm.getRawMaterial().getCode();
-        r.rawMaterialName = pm.getRawMaterial().getName();
-        r.requiredQuantity = pm.getRequiredQuantity();
-        return r;
+        cacheEvictor.evict(ProductMaterial.class, List.of(productMaterialId));
+        events.publishEvent(CatalogChangedEvent.productMaterial(productId, rawMaterialId));
     }
 }
@@ -0,0 +1,15 @@
+package com.yago.inventory_api.bom.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.math.BigDecimal;
+
+public class ProductComponentCreateRequest {
+
+    @NotNull
+    public Long componentProductId;
+
+    @NotNull
+    @Positive
+    public BigDecimal requiredQuantity;
+}
@@ -0,0 +1,27 @@
+package com.yago.inventory_api.bom.dto;
+
+import java.math.BigDecimal;
+
+public class ProductComponentResponse {
+    public Long id;
+    public Long productId;
+
+    public Long componentProductId;
+    public String componentProductCode;
+    public String componentProductName;
+
+    public BigDecimal requiredQuantity;
+
+    public ProductComponentResponse() {
+    }
+
+    public ProductComponentResponse(Long id, Long productId, Long componentProductId, String componentProductCode,
+            String componentProductName, BigDecimal requiredQuantity) {
+        this.id = id;
+        this.productId = productId;
+        this.componentProductId = componentProductId;
+        this.componentProductCode = componentProductCode;
+        this.componentProductName = componentProductName;
+        this.requiredQuantity = requiredQuantity;
+    }
+}
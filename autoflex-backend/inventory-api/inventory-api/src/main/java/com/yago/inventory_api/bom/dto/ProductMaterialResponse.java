@@ -11,4 +11,17 @@ public class ProductMaterialResponse {
     public String rawMaterialName;
 
     public BigDecimal requiredQuantity;
+
+    public ProductMaterialResponse() {
+    }
+
+    public ProductMaterialResponse(Long id, Long productId, Long rawMaterialId, String rawMaterialCode,
+            String rawMaterialName, BigDecimal requiredQuantity) {
+        this.id = id;
+        this.productId = productId;
+        this.rawMaterialId = rawMaterialId;
+        this.rawMaterialCode = rawMaterialCode;
+        this.rawMaterialName = rawMaterialName;
+        this.requiredQuantity = requiredQuantity;
+    }
 }
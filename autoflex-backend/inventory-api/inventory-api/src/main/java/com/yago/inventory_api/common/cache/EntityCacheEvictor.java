@@ -0,0 +1,68 @@
+package com.yago.inventory_api.common.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts second-level cache entries for writes that go straight through
+ * JDBC and so are invisible to Hibernate. Inside a transaction the eviction
+ * runs after commit, so a concurrent read cannot put the old row back, and
+ * ahead of the after-commit catalog listeners, so nothing they trigger
+ * (a catalog reload, a new ETag) is served from the old rows.
+ */
+@Component
+public class EntityCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public EntityCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /** Evicts every cached row of {@code entity}. */
+    public void evictAll(Class<?> entity) {
+        afterCommit(() -> cache().evictEntityData(entity));
+    }
+
+    public void evict(Class<?> entity, Collection<?> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<?> copy = List.copyOf(ids);
+        afterCommit(() -> {
+            Cache cache = cache();
+            for (Object id : copy) {
+                cache.evictEntityData(entity, id);
+            }
+        });
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
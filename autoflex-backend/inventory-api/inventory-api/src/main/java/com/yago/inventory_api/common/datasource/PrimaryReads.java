@@ -0,0 +1,41 @@
+package com.yago.inventory_api.common.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins the reads of the current thread to the primary when a read replica is
+ * configured, for readers that need data the replica may not have reached
+ * yet: a client that just wrote, a client holding a newer ETag, a catalog
+ * reload after a local write. Has no effect without a replica.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    /** Runs {@code action} pinned to the primary. */
+    public static <T> T call(Supplier<T> action) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PINNED.set(previous);
+        }
+    }
+
+    /** Pins the current thread until {@link #release()}. */
+    public static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void release() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+}
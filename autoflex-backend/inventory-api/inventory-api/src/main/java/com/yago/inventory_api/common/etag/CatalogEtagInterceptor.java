@@ -0,0 +1,87 @@
+package com.yago.inventory_api.common.etag;
+
+import com.yago.inventory_api.common.datasource.PrimaryReads;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Collections;
+
+/**
+ * Answers {@code If-None-Match} on catalog reads from the catalog version
+ * alone, before the handler runs, so an unchanged catalog costs neither a
+ * query nor a planner run.
+ * <p>
+ * The tag is the version of the database the handler will read from, taken
+ * before it reads, so a body is never older than its tag. That is the
+ * replica, unless the client already holds a newer tag than the replica has
+ * reached: the request is then pinned to the primary, or the client would
+ * get a body older than the one it has.
+ */
+@Component
+public class CatalogEtagInterceptor implements AsyncHandlerInterceptor {
+
+    private final CatalogVersion catalogVersion;
+
+    public CatalogEtagInterceptor(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+
+        long known = knownVersion(request);
+        long version = catalogVersion.replica(known);
+        if (version < known) {
+            PrimaryReads.pin();
+            version = catalogVersion.current(known);
+        }
+        // sets the ETag header either way; true means a 304 was written
+        if (new ServletWebRequest(request, response).checkNotModified(CatalogVersion.etag(version))) {
+            // afterCompletion is not called when preHandle returns false
+            PrimaryReads.release();
+            return false;
+        }
+        return true;
+    }
+
+    /** The newest catalog version among the tags in {@code If-None-Match}, or -1. */
+    private static long knownVersion(HttpServletRequest request) {
+        long known = -1;
+        for (String header : Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH))) {
+            for (String tag : header.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                    try {
+                        known = Math.max(known, Long.parseLong(tag.substring(1, tag.length() - 1)));
+                    } catch (NumberFormatException e) {
+                        // not one of ours
+                    }
+                }
+            }
+        }
+        return known;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        PrimaryReads.release();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        PrimaryReads.release();
+    }
+}
@@ -0,0 +1,200 @@
+package com.yago.inventory_api.common.etag;
+
+import com.yago.inventory_api.common.datasource.PrimaryReads;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Monotonic version of the whole catalog, kept in the {@code catalog_version}
+ * row so that every instance agrees on it. A transaction that changes the
+ * catalog bumps the row as its last statement, just before committing, so
+ * the row lock is only held for the commit itself. Reads are cached for
+ * {@code catalog.version.ttl}; commits made by this instance raise the
+ * cached value at once, those of other instances show up within the TTL.
+ * The versions committed here are remembered for a while, so that caches
+ * fed by local change events can tell whether anyone else wrote in between.
+ */
+@Component
+public class CatalogVersion {
+
+    private static final String BUMP = "update catalog_version set version = version + 1 returning version";
+    private static final int LOCAL_COMMITS_KEPT = 1024;
+
+    private final JdbcTemplate jdbc;
+    private final EntityManager entityManager;
+    private final TransactionTemplate replicaReads;
+    private final boolean replicated;
+    private final long ttlNanos;
+
+    private volatile Cached cached;
+    private volatile Cached cachedReplica;
+    private final NavigableSet<Long> localCommits = new ConcurrentSkipListSet<>();
+
+    private record Cached(long version, long readAt) {
+    }
+
+    public CatalogVersion(JdbcTemplate jdbc, EntityManager entityManager, PlatformTransactionManager transactionManager,
+            @Value("${datasource.replica.jdbc-url:}") String replicaUrl,
+            @Value("${catalog.version.ttl:1s}") Duration ttl) {
+        this.jdbc = jdbc;
+        this.entityManager = entityManager;
+        this.replicaReads = new TransactionTemplate(transactionManager);
+        this.replicaReads.setReadOnly(true);
+        this.replicated = !replicaUrl.isBlank();
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Read it before loading the data it describes: a write that commits in
+     * between then only makes the tag older than the body, never newer.
+     */
+    public String etag() {
+        return etag(current());
+    }
+
+    /** The version on the primary. */
+    public long current() {
+        return current(Long.MIN_VALUE);
+    }
+
+    /** Like {@link #current()}, but re-read when the cached value is below {@code atLeast}. */
+    public long current(long atLeast) {
+        Cached c = cached;
+        if (c == null || c.version < atLeast || System.nanoTime() - c.readAt > ttlNanos) {
+            long readAt = System.nanoTime();
+            long version = PrimaryReads.call(this::read);
+            synchronized (this) {
+                c = cached = raise(cached, version, readAt);
+            }
+        }
+        return c.version;
+    }
+
+    /**
+     * The version that read-only transactions of the current thread see: the
+     * replica's, or {@link #current()} when there is no replica or the thread
+     * is pinned to the primary. Call it outside a transaction.
+     */
+    public long replica() {
+        return replica(Long.MIN_VALUE);
+    }
+
+    /** Like {@link #replica()}, but re-read when the cached value is below {@code atLeast}. */
+    public long replica(long atLeast) {
+        if (!replicated || PrimaryReads.isPinned()) {
+            return current(atLeast);
+        }
+        Cached c = cachedReplica;
+        if (c == null || c.version < atLeast || System.nanoTime() - c.readAt > ttlNanos) {
+            long readAt = System.nanoTime();
+            long version = replicaReads.execute(status -> read());
+            synchronized (this) {
+                c = cachedReplica = raise(cachedReplica, version, readAt);
+            }
+        }
+        return c.version;
+    }
+
+    /**
+     * The version as seen by the current transaction, uncached: read it
+     * before the data it describes, in the same transaction.
+     */
+    public long read() {
+        return jdbc.queryForObject("select version from catalog_version", Long.class);
+    }
+
+    /** Whether every version after {@code from} up to {@code to} was committed by this instance. */
+    public boolean committedHere(long from, long to) {
+        if (to - from > LOCAL_COMMITS_KEPT) {
+            return false;
+        }
+        for (long v = from + 1; v <= to; v++) {
+            if (!localCommits.contains(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // never goes back: a read that raced with a newer one or with a commit must not undo it
+    private static Cached raise(Cached previous, long version, long readAt) {
+        return previous == null ? new Cached(version, readAt)
+                : new Cached(Math.max(version, previous.version), Math.max(readAt, previous.readAt));
+    }
+
+    private synchronized void committed(long version) {
+        localCommits.add(version);
+        if (localCommits.size() > LOCAL_COMMITS_KEPT) {
+            localCommits.pollFirst();
+        }
+        Cached c = cached;
+        if (c != null && version > c.version) {
+            cached = new Cached(version, c.readAt);
+        }
+    }
+
+    /**
+     * Bumps the version when the current transaction commits, once however
+     * many changes it makes; without a transaction it is bumped at once.
+     */
+    public void changed() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            committed(jdbc.queryForObject(BUMP, Long.class));
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long version;
+
+            // ahead of the after-commit catalog listeners, which read the new version
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // pending entity writes take their row locks before the version row, not after it
+                entityManager.flush();
+                version = jdbc.queryForObject(BUMP, Long.class);
+            }
+
+            @Override
+            public void afterCommit() {
+                committed(version);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersion.this);
+            }
+        });
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        changed();
+    }
+}
@@ -0,0 +1,44 @@
+package com.yago.inventory_api.common.event;
+
+public class CatalogChangedEvent {
+
+    public enum Kind {
+        PRODUCT,
+        RAW_MATERIAL,
+        PRODUCT_MATERIAL
+    }
+
+    private final Kind kind;
+    private final Long productId;
+    private final Long rawMaterialId;
+
+    private CatalogChangedEvent(Kind kind, Long productId, Long rawMaterialId) {
+        this.kind = kind;
+        this.productId = productId;
+        this.rawMaterialId = rawMaterialId;
+    }
+
+    public static CatalogChangedEvent product(Long productId) {
+        return new CatalogChangedEvent(Kind.PRODUCT, productId, null);
+    }
+
+    public static CatalogChangedEvent rawMaterial(Long rawMaterialId) {
+        return new CatalogChangedEvent(Kind.RAW_MATERIAL, null, rawMaterialId);
+    }
+
+    public static CatalogChangedEvent productMaterial(Long productId, Long rawMaterialId) {
+        return new CatalogChangedEvent(Kind.PRODUCT_MATERIAL, productId, rawMaterialId);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getRawMaterialId() {
+        return rawMaterialId;
+    }
+}
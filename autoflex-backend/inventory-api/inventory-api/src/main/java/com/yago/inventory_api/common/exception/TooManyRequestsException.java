@@ -0,0 +1,7 @@
+package com.yago.inventory_api.common.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
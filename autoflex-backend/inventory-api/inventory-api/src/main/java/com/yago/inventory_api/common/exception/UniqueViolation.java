@@ -0,0 +1,21 @@
+package com.yago.inventory_api.common.exception;
+
+import java.sql.SQLException;
+
+public final class UniqueViolation {
+
+    private static final String SQL_STATE = "23505";
+
+    private UniqueViolation() {
+    }
+
+    /** Whether {@code e} was caused by a unique constraint or index rejecting a row. */
+    public static boolean isCause(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && SQL_STATE.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
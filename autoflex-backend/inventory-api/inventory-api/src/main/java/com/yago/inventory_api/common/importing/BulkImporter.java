@@ -0,0 +1,186 @@
+package com.yago.inventory_api.common.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams an upload through a row mapper and writes it with JDBC batch
+ * upserts, {@link #CHUNK_SIZE} rows per transaction. Rows that fail
+ * validation are reported and skipped; when the database rejects a batch its
+ * rows are retried one by one so only the offending ones are reported.
+ */
+@Component
+public class BulkImporter {
+
+    public static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * Maps a record to the upsert parameters. The first parameter must be the
+     * code, which is the conflict key. Throws {@link IllegalArgumentException}
+     * when the record is invalid.
+     */
+    @FunctionalInterface
+    public interface RowMapper {
+        Object[] map(Map<String, String> record);
+    }
+
+    /**
+     * Writes a chunk of mapped rows; called inside a transaction, with a
+     * single row when a chunk is retried row by row.
+     */
+    @FunctionalInterface
+    public interface ChunkWriter {
+        void write(List<Object[]> rows);
+    }
+
+    private record PendingRow(long line, Object[] args) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final ObjectMapper objectMapper;
+
+    public BulkImporter(JdbcTemplate jdbc, TransactionTemplate transactions, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+        this.objectMapper = objectMapper;
+    }
+
+    public ImportResultResponse run(InputStream in, MediaType contentType, String upsertSql, RowMapper mapper)
+            throws IOException {
+        return run(in, contentType, rows -> jdbc.batchUpdate(upsertSql, rows), mapper);
+    }
+
+    public ImportResultResponse run(InputStream in, MediaType contentType, ChunkWriter writer, RowMapper mapper)
+            throws IOException {
+        ImportResultResponse result = new ImportResultResponse();
+        // keyed by code: a batch must not touch the same row twice, so the last occurrence wins
+        Map<Object, PendingRow> chunk = new LinkedHashMap<>();
+        int chunkRecords = 0;
+
+        try (ImportRecordReader reader = ImportRecordReader.open(in, contentType, objectMapper)) {
+            while (true) {
+                Map<String, String> record;
+                try {
+                    record = reader.next();
+                } catch (IllegalArgumentException e) {
+                    result.processed++;
+                    reject(result, reader.line(), null, e.getMessage());
+                    continue;
+                } catch (JsonProcessingException e) {
+                    reject(result, e.getLocation() == null ? reader.line() : e.getLocation().getLineNr(), null,
+                            "Malformed JSON, import stopped: " + e.getOriginalMessage());
+                    break;
+                }
+                if (record == null) {
+                    break;
+                }
+
+                result.processed++;
+                Object[] args;
+                try {
+                    args = mapper.map(record);
+                } catch (IllegalArgumentException e) {
+                    reject(result, reader.line(), record.get("code"), e.getMessage());
+                    continue;
+                }
+
+                chunk.remove(args[0]);
+                chunk.put(args[0], new PendingRow(reader.line(), args));
+                if (++chunkRecords == CHUNK_SIZE) {
+                    flush(result, writer, chunk, chunkRecords);
+                    chunk.clear();
+                    chunkRecords = 0;
+                }
+            }
+        }
+
+        flush(result, writer, chunk, chunkRecords);
+        return result;
+    }
+
+    private void flush(ImportResultResponse result, ChunkWriter writer, Map<Object, PendingRow> chunk, int records) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(chunk.size());
+        for (PendingRow row : chunk.values()) {
+            batch.add(row.args());
+        }
+
+        try {
+            transactions.executeWithoutResult(status -> writer.write(batch));
+            result.upserted += records;
+            return;
+        } catch (DataAccessException e) {
+            // fall through and find the rows the database rejects
+        }
+
+        int superseded = records - chunk.size();
+        result.upserted += superseded;
+        for (PendingRow row : chunk.values()) {
+            try {
+                transactions.executeWithoutResult(status -> writer.write(List.<Object[]>of(row.args())));
+                result.upserted++;
+            } catch (DataAccessException e) {
+                reject(result, row.line(), String.valueOf(row.args()[0]),
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+        }
+    }
+
+    private static void reject(ImportResultResponse result, long line, String code, String message) {
+        result.failed++;
+        if (result.errors.size() < MAX_REPORTED_ERRORS) {
+            result.errors.add(new ImportRowError(line, code, message));
+        } else {
+            result.errorsTruncated = true;
+        }
+    }
+
+    public static String requiredText(Map<String, String> record, String field) {
+        String value = record.get(field);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required.");
+        }
+        return value.trim();
+    }
+
+    /**
+     * Parses a decimal that must fit a {@code numeric(precision, scale)}
+     * column without rounding.
+     */
+    public static BigDecimal requiredDecimal(Map<String, String> record, String field, int precision, int scale) {
+        String text = requiredText(record, field);
+        BigDecimal value;
+        try {
+            value = new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be a number.");
+        }
+
+        if (Math.max(value.stripTrailingZeros().scale(), 0) > scale) {
+            throw new IllegalArgumentException(field + " must have at most " + scale + " decimal places.");
+        }
+        if (value.precision() - value.scale() > precision - scale) {
+            throw new IllegalArgumentException(field + " is too large.");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,179 @@
+package com.yago.inventory_api.common.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads an upload one record at a time as field name to raw value. CSV
+ * uploads need a header row; NDJSON uploads have one object per line.
+ */
+public abstract class ImportRecordReader implements Closeable {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    /**
+     * @return the next record, or {@code null} at the end of the input
+     * @throws IllegalArgumentException when the record cannot be parsed; the
+     *                                  reader is positioned on the next one
+     * @throws JsonProcessingException  when an NDJSON upload is malformed and
+     *                                  cannot be read any further
+     */
+    public abstract Map<String, String> next() throws IOException;
+
+    /** Line of the record last returned by {@link #next()}. */
+    public abstract long line();
+
+    public static ImportRecordReader open(InputStream in, MediaType contentType, ObjectMapper objectMapper)
+            throws IOException {
+        if (TEXT_CSV.isCompatibleWith(contentType)) {
+            return new Csv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        }
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return new Ndjson(objectMapper.readerFor(JsonNode.class).readValues(in));
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType
+                + ". Use text/csv or application/x-ndjson.");
+    }
+
+    private static final class Csv extends ImportRecordReader {
+        private final BufferedReader reader;
+        private final List<String> header;
+        private long lineNumber = 1;
+        private long recordLine;
+
+        Csv(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> names = readRow();
+            if (names == null) {
+                throw new IllegalArgumentException("CSV upload is empty; a header row is required.");
+            }
+            this.header = names.stream().map(String::trim).toList();
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> row;
+            do {
+                row = readRow();
+                if (row == null) {
+                    return null;
+                }
+            } while (row.size() == 1 && row.get(0).isBlank());
+
+            if (row.size() != header.size()) {
+                throw new IllegalArgumentException(
+                        "Expected " + header.size() + " columns but found " + row.size() + ".");
+            }
+
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                record.put(header.get(i), row.get(i));
+            }
+            return record;
+        }
+
+        @Override
+        public long line() {
+            return recordLine;
+        }
+
+        private List<String> readRow() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            recordLine = lineNumber++;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // quoted field spanning lines
+                    line = reader.readLine();
+                    if (line == null) {
+                        throw new IllegalArgumentException("Unterminated quoted field.");
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class Ndjson extends ImportRecordReader {
+        private final MappingIterator<JsonNode> iterator;
+        private long recordLine;
+
+        Ndjson(MappingIterator<JsonNode> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (!iterator.hasNextValue()) {
+                return null;
+            }
+            recordLine = iterator.getCurrentLocation().getLineNr();
+
+            JsonNode node = iterator.nextValue();
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("Expected a JSON object.");
+            }
+
+            Map<String, String> record = new HashMap<>();
+            node.properties().forEach(e -> record.put(e.getKey(), e.getValue().isNull() ? null
+                    : e.getValue().asText()));
+            return record;
+        }
+
+        @Override
+        public long line() {
+            return recordLine;
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.yago.inventory_api.common.importing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResultResponse {
+    public long processed;
+    public long upserted;
+    public long failed;
+    public List<ImportRowError> errors = new ArrayList<>();
+    public boolean errorsTruncated;
+}
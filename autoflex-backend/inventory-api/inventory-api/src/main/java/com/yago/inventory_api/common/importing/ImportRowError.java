@@ -0,0 +1,13 @@
+package com.yago.inventory_api.common.importing;
+
+public class ImportRowError {
+    public long line;
+    public String code;
+    public String message;
+
+    public ImportRowError(long line, String code, String message) {
+        this.line = line;
+        this.code = code;
+        this.message = message;
+    }
+}
@@ -0,0 +1,15 @@
+package com.yago.inventory_api.common.pagination;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public final List<T> items;
+    public final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,145 @@
+package com.yago.inventory_api.common.pagination;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keyset (cursor) pagination over a JPA entity with a {@code Long id}.
+ */
+public class Keyset<T> {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private final KeysetField<T> field;
+    private final boolean descending;
+    private final int limit;
+    private final Function<T, Long> idOf;
+
+    private Keyset(KeysetField<T> field, boolean descending, int limit, Function<T, Long> idOf) {
+        this.field = field;
+        this.descending = descending;
+        this.limit = limit;
+        this.idOf = idOf;
+    }
+
+    public static <T> Keyset<T> of(Map<String, KeysetField<T>> fields, String sort, String direction, Integer limit,
+            Function<T, Long> idOf) {
+        KeysetField<T> field = fields.get(sort == null ? "id" : sort);
+        if (field == null) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort + ". Use one of " + fields.keySet() + ".");
+        }
+
+        boolean descending;
+        String dir = direction == null ? "asc" : direction.toLowerCase(Locale.ROOT);
+        if (dir.equals("asc")) {
+            descending = false;
+        } else if (dir.equals("desc")) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("Unsupported direction: " + direction + ". Use asc or desc.");
+        }
+
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+
+        return new Keyset<>(field, descending, size, idOf);
+    }
+
+    public int fetchSize() {
+        return limit + 1;
+    }
+
+    public Sort sort() {
+        Sort.Direction dir = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(dir, field.getAttribute());
+        return field.getAttribute().equals("id") ? sort : sort.and(Sort.by(dir, "id"));
+    }
+
+    /**
+     * Rows strictly after the cursor in page order; everything when the
+     * cursor is null.
+     */
+    public Specification<T> after(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+
+        int sep = decoded.indexOf(':');
+        Long id;
+        Comparable<?> value;
+        try {
+            id = Long.valueOf(sep < 0 ? decoded : decoded.substring(0, sep));
+            value = sep < 0 ? id : field.parse(decoded.substring(sep + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            if (field.getAttribute().equals("id")) {
+                return descending ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id);
+            }
+            return afterKey(root.get(field.getAttribute()), value, idPath, id, cb);
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate afterKey(Path key, Comparable value, Path<Long> idPath, Long id, CriteriaBuilder cb) {
+        // the redundant bound on the key alone lets the (key, id) index start at the cursor
+        if (descending) {
+            return cb.and(cb.lessThanOrEqualTo(key, value),
+                    cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(idPath, id))));
+        }
+        return cb.and(cb.greaterThanOrEqualTo(key, value),
+                cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(idPath, id))));
+    }
+
+    public <R> CursorPage<R> page(List<T> rows, Function<T, R> mapper) {
+        boolean hasNext = rows.size() > limit;
+        List<T> page = hasNext ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            T last = page.get(page.size() - 1);
+            Long id = idOf.apply(last);
+            String raw = field.getAttribute().equals("id") ? String.valueOf(id) : id + ":" + format(field.valueOf(last));
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new CursorPage<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    private static String format(Object value) {
+        return value instanceof BigDecimal bd ? bd.toPlainString() : String.valueOf(value);
+    }
+
+    public static <T> Specification<T> startsWith(String attribute, String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get(attribute), pattern, '\\');
+    }
+}
@@ -0,0 +1,33 @@
+package com.yago.inventory_api.common.pagination;
+
+import java.util.function.Function;
+
+/**
+ * A column a list endpoint can be sorted by. Pages are ordered by the
+ * attribute and then by id, and the cursor carries both values of the last
+ * row so the next page starts right after it.
+ */
+public class KeysetField<T> {
+
+    private final String attribute;
+    private final Function<String, Comparable<?>> parser;
+    private final Function<T, Object> extractor;
+
+    public KeysetField(String attribute, Function<String, Comparable<?>> parser, Function<T, Object> extractor) {
+        this.attribute = attribute;
+        this.parser = parser;
+        this.extractor = extractor;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+
+    Object valueOf(T entity) {
+        return extractor.apply(entity);
+    }
+}
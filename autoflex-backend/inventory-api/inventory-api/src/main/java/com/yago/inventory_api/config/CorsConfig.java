@@ -1,6 +1,8 @@
 package com.yago.inventory_api.config;
 
+import com.yago.inventory_api.common.pagination.CursorPage;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -20,6 +22,7 @@ public class CorsConfig implements WebMvcConfigurer {
                         "DELETE",
                         "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders(CursorPage.NEXT_CURSOR_HEADER, HttpHeaders.LOCATION, HttpHeaders.ETAG)
                 .allowCredentials(true);
     }
 }
\ No newline at end of file
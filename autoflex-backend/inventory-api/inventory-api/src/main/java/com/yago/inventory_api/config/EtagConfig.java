@@ -0,0 +1,23 @@
+package com.yago.inventory_api.config;
+
+import com.yago.inventory_api.common.etag.CatalogEtagInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class EtagConfig implements WebMvcConfigurer {
+
+    private final CatalogEtagInterceptor catalogEtagInterceptor;
+
+    public EtagConfig(CatalogEtagInterceptor catalogEtagInterceptor) {
+        this.catalogEtagInterceptor = catalogEtagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogEtagInterceptor)
+                .addPathPatterns("/products", "/products/**", "/raw-materials", "/raw-materials/**",
+                        "/production/suggestions");
+    }
+}
@@ -0,0 +1,35 @@
+package com.yago.inventory_api.config;
+
+import com.yago.inventory_api.common.datasource.PrimaryReads;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything
+ * else, including reads pinned with {@link PrimaryReads}, to the primary.
+ * Must sit behind a lazy connection proxy: the transaction manager opens the
+ * connection before it marks the transaction read-only.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PrimaryReads.isPinned()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,80 @@
+package com.yago.inventory_api.config;
+
+import com.yago.inventory_api.common.datasource.PrimaryReads;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Pins the reads of a client to the primary for {@code datasource.read-your-writes}
+ * after each of its writes, so it reads them back even from a replica that
+ * lags by less than that. The window travels with the client in a cookie:
+ * it holds whichever instance serves the next request, and the reads of
+ * every other client stay on the replica.
+ */
+class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    static final String COOKIE = "read-your-writes";
+
+    private final Duration window;
+
+    ReadYourWritesInterceptor(Duration window) {
+        // cookies count in whole seconds
+        this.window = Duration.ofSeconds((window.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (window.isZero()) {
+            return true;
+        }
+        if (!isRead(request)) {
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, "1")
+                    .maxAge(window)
+                    .path("/")
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+            PrimaryReads.pin();
+        } else if (hasCookie(request)) {
+            PrimaryReads.pin();
+        }
+        return true;
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())
+                || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    private static boolean hasCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        PrimaryReads.release();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        PrimaryReads.release();
+    }
+}
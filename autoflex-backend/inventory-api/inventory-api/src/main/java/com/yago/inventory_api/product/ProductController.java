@@ -3,10 +3,17 @@ package com.yago.inventory_api.product;
 import com.yago.inventory_api.product.dto.ProductCreateRequest;
 import com.yago.inventory_api.product.dto.ProductResponse;
 import com.yago.inventory_api.product.dto.ProductUpdateRequest;
+import com.yago.inventory_api.common.pagination.CursorPage;
+import com.yago.inventory_api.common.importing.ImportResultResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -25,9 +32,31 @@ public class ProductController {
         return service.create(req);
     }
 
+    @PostMapping(value = "/import", consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE })
+    public ImportResultResponse importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        return service.importProducts(body, contentType);
+    }
+
     @GetMapping
-    public List<ProductResponse> findAll() {
-        return service.findAll();
+    public ResponseEntity<List<ProductResponse>> findAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String codePrefix,
+            @RequestParam(required = false) String namePrefix) {
+        if (limit == null && cursor == null && sort == null && direction == null && codePrefix == null
+                && namePrefix == null) {
+            return ResponseEntity.ok(service.findAll());
+        }
+
+        CursorPage<ProductResponse> page = service.findPage(limit, cursor, sort, direction, codePrefix, namePrefix);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor);
+        }
+        return response.body(page.items);
     }
 
     @GetMapping("/{id}")
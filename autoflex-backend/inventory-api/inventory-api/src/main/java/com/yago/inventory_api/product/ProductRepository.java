@@ -1,14 +1,33 @@
 package com.yago.inventory_api.product;
 
+import com.yago.inventory_api.product.dto.ProductResponse;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
     Optional<Product> findByCode(String code);
 
-    boolean existsByCode(String code);
+    @Modifying
+    @Query("delete from Product p where p.id = :id")
+    int deleteByIdReturningCount(Long id);
 
     List<Product> findAllByOrderByPriceDesc();
-}
\ No newline at end of file
+
+    @Query("""
+            select new com.yago.inventory_api.product.dto.ProductResponse(p.id, p.code, p.name, p.price)
+            from Product p
+            order by p.id
+            """)
+    List<ProductResponse> findAllResponses();
+
+    default List<Product> findPage(Specification<Product> filter, Sort sort, int limit) {
+        return findBy(filter, q -> q.sortBy(sort).limit(limit).all());
+    }
+}
@@ -3,42 +3,104 @@ package com.yago.inventory_api.product;
 import com.yago.inventory_api.product.dto.ProductCreateRequest;
 import com.yago.inventory_api.product.dto.ProductResponse;
 import com.yago.inventory_api.product.dto.ProductUpdateRequest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.yago.inventory_api.common.cache.EntityCacheEvictor;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
+import com.yago.inventory_api.common.importing.BulkImporter;
+import com.yago.inventory_api.common.importing.ImportResultResponse;
+import com.yago.inventory_api.common.pagination.CursorPage;
+import com.yago.inventory_api.common.pagination.Keyset;
+import com.yago.inventory_api.common.pagination.KeysetField;
 import com.yago.inventory_api.common.exception.ConflictException;
+import com.yago.inventory_api.common.exception.UniqueViolation;
 import com.yago.inventory_api.common.exception.NotFoundException;
 
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ProductService {
 
+    private static final String UPSERT_SQL = """
+            insert into products (code, name, price) values (?, ?, ?)
+            on conflict (code) do update set name = excluded.name, price = excluded.price""";
+
+    private static final Map<String, KeysetField<Product>> SORT_FIELDS = Map.of(
+            "id", new KeysetField<>("id", Long::valueOf, Product::getId),
+            "code", new KeysetField<>("code", s -> s, Product::getCode),
+            "name", new KeysetField<>("name", s -> s, Product::getName),
+            "price", new KeysetField<>("price", BigDecimal::new, Product::getPrice));
+
     private final ProductRepository repository;
+    private final ApplicationEventPublisher events;
+    private final BulkImporter importer;
+    private final EntityCacheEvictor cacheEvictor;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(ProductRepository repository, ApplicationEventPublisher events,
+            BulkImporter importer, EntityCacheEvictor cacheEvictor) {
         this.repository = repository;
+        this.events = events;
+        this.importer = importer;
+        this.cacheEvictor = cacheEvictor;
     }
 
     @Transactional
     public ProductResponse create(ProductCreateRequest req) {
-        if (repository.existsByCode(req.code)) {
-            throw new ConflictException("Product code already exists");
-        }
-
         Product p = new Product();
         p.setCode(req.code);
         p.setName(req.name);
         p.setPrice(req.price);
 
-        Product saved = repository.save(p);
+        Product saved;
+        try {
+            saved = repository.saveAndFlush(p);
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueViolation.isCause(e)) {
+                throw new ConflictException("Product code already exists");
+            }
+            throw e;
+        }
+        events.publishEvent(CatalogChangedEvent.product(saved.getId()));
         return toResponse(saved);
     }
 
+    public ImportResultResponse importProducts(InputStream in, MediaType contentType) throws IOException {
+        ImportResultResponse result = importer.run(in, contentType, UPSERT_SQL, ProductService::toImportRow);
+        if (result.upserted > 0) {
+            cacheEvictor.evictAll(Product.class);
+            // no single id: the planner reloads the whole catalog
+            events.publishEvent(CatalogChangedEvent.product(null));
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
     public List<ProductResponse> findAll() {
-        return repository.findAll().stream().map(this::toResponse).toList();
+        return repository.findAllResponses();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> findPage(Integer limit, String cursor, String sort, String direction,
+            String codePrefix, String namePrefix) {
+        Keyset<Product> keyset = Keyset.of(SORT_FIELDS, sort, direction, limit, Product::getId);
+
+        Specification<Product> filter = Specification.allOf(keyset.after(cursor),
+                Keyset.startsWith("code", codePrefix), Keyset.startsWith("name", namePrefix));
+
+        return keyset.page(repository.findPage(filter, keyset.sort(), keyset.fetchSize()), this::toResponse);
+    }
+
+    @Transactional(readOnly = true)
     public ProductResponse findById(Long id) {
         Product p = repository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product not found."));
@@ -50,19 +112,20 @@ public class ProductService {
         Product p = repository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product not found."));
 
+        // usually a second-level cache hit, so the dirty-checked UPDATE is the only statement
         p.setName(req.name);
         p.setPrice(req.price);
 
-        Product saved = repository.save(p);
-        return toResponse(saved);
+        events.publishEvent(CatalogChangedEvent.product(p.getId()));
+        return toResponse(p);
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!repository.existsById(id)) {
+        if (repository.deleteByIdReturningCount(id) == 0) {
             throw new NotFoundException("Product not found.");
         }
-        repository.deleteById(id);
+        events.publishEvent(CatalogChangedEvent.product(id));
     }
 
     private ProductResponse toResponse(Product p) {
@@ -73,4 +136,14 @@ public class ProductService {
         r.price = p.getPrice();
         return r;
     }
+
+    private static Object[] toImportRow(Map<String, String> record) {
+        String code = BulkImporter.requiredText(record, "code");
+        String name = BulkImporter.requiredText(record, "name");
+        BigDecimal price = BulkImporter.requiredDecimal(record, "price", 12, 2);
+        if (price.signum() <= 0) {
+            throw new IllegalArgumentException("price must be greater than 0.");
+        }
+        return new Object[] { code, name, price };
+    }
 }
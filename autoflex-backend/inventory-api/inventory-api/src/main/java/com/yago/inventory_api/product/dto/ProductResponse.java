@@ -7,4 +7,14 @@ public class ProductResponse {
     public String code;
     public String name;
     public BigDecimal price;
+
+    public ProductResponse() {
+    }
+
+    public ProductResponse(Long id, String code, String name, BigDecimal price) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.price = price;
+    }
 }
@@ -0,0 +1,145 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.bom.ComponentLine;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Expands multi-level BOMs into raw-material lines per product, so the
+ * planner only ever sees single-level recipes.
+ * <p>
+ * Products are resolved in topological order (sub-assemblies first) and the
+ * result for each one is kept between loads. Only products whose BOM
+ * changed, and the products that use them directly or not, are resolved
+ * again. A product that needs a sub-assembly without a BOM, or that sits on
+ * a cycle, gets no lines and is therefore never planned.
+ */
+final class BomFlattener {
+
+    private static final int QUANTITY_SCALE = 3;
+
+    private final Map<Long, List<BomLine>> flattenedByProductId = new HashMap<>();
+
+    /**
+     * @param changedProductIds products whose own BOM changed since the last
+     *                          call, or {@code null} when that is unknown
+     */
+    synchronized List<BomLine> flatten(List<BomLine> bomLines, List<ComponentLine> componentLines,
+            Set<Long> changedProductIds) {
+        if (componentLines.isEmpty()) {
+            // single-level catalog: nothing to expand or remember
+            flattenedByProductId.clear();
+            return bomLines;
+        }
+
+        Map<Long, List<BomLine>> direct = new LinkedHashMap<>();
+        for (BomLine line : bomLines) {
+            direct.computeIfAbsent(line.getProductId(), id -> new ArrayList<>()).add(line);
+        }
+        Map<Long, List<ComponentLine>> components = new HashMap<>();
+        Map<Long, List<Long>> usedBy = new HashMap<>();
+        for (ComponentLine line : componentLines) {
+            components.computeIfAbsent(line.getProductId(), id -> new ArrayList<>()).add(line);
+            usedBy.computeIfAbsent(line.getComponentProductId(), id -> new ArrayList<>()).add(line.getProductId());
+        }
+
+        Set<Long> productIds = new LinkedHashSet<>(direct.keySet());
+        productIds.addAll(components.keySet());
+        productIds.addAll(usedBy.keySet());
+
+        invalidate(changedProductIds, usedBy);
+        flattenedByProductId.keySet().retainAll(productIds);
+
+        // Kahn's algorithm over "is a component of" edges: a product is ready once all its components are
+        Map<Long, Integer> pending = new HashMap<>();
+        Deque<Long> ready = new ArrayDeque<>();
+        for (Long id : productIds) {
+            int n = components.getOrDefault(id, List.of()).size();
+            pending.put(id, n);
+            if (n == 0) {
+                ready.add(id);
+            }
+        }
+        while (!ready.isEmpty()) {
+            Long id = ready.poll();
+            flattenedByProductId.computeIfAbsent(id, p -> resolve(p, direct, components));
+            for (Long parent : usedBy.getOrDefault(id, List.of())) {
+                if (pending.merge(parent, -1, Integer::sum) == 0) {
+                    ready.add(parent);
+                }
+            }
+        }
+
+        List<BomLine> flattened = new ArrayList<>(bomLines.size());
+        for (Long id : productIds) {
+            // products left pending are on, or above, a cycle
+            flattened.addAll(flattenedByProductId.getOrDefault(id, List.of()));
+        }
+        return flattened;
+    }
+
+    private void invalidate(Set<Long> changedProductIds, Map<Long, List<Long>> usedBy) {
+        if (changedProductIds == null) {
+            flattenedByProductId.clear();
+            return;
+        }
+
+        Deque<Long> stale = new ArrayDeque<>(changedProductIds);
+        Set<Long> seen = new HashSet<>(changedProductIds);
+        while (!stale.isEmpty()) {
+            Long id = stale.poll();
+            flattenedByProductId.remove(id);
+            for (Long parent : usedBy.getOrDefault(id, List.of())) {
+                if (seen.add(parent)) {
+                    stale.add(parent);
+                }
+            }
+        }
+    }
+
+    private List<BomLine> resolve(Long productId, Map<Long, List<BomLine>> direct,
+            Map<Long, List<ComponentLine>> components) {
+        List<BomLine> own = direct.getOrDefault(productId, List.of());
+        List<ComponentLine> subAssemblies = components.getOrDefault(productId, List.of());
+        if (subAssemblies.isEmpty()) {
+            return own;
+        }
+
+        Map<Long, BigDecimal> required = new LinkedHashMap<>();
+        for (BomLine line : own) {
+            if (line.getRequiredQuantity() == null) {
+                return List.of();
+            }
+            required.merge(line.getRawMaterialId(), line.getRequiredQuantity(), BigDecimal::add);
+        }
+        for (ComponentLine component : subAssemblies) {
+            List<BomLine> lines = flattenedByProductId.get(component.getComponentProductId());
+            if (lines.isEmpty()) {
+                return List.of();
+            }
+            for (BomLine line : lines) {
+                if (line.getRequiredQuantity() == null) {
+                    return List.of();
+                }
+                required.merge(line.getRawMaterialId(),
+                        line.getRequiredQuantity().multiply(component.getRequiredQuantity()), BigDecimal::add);
+            }
+        }
+
+        List<BomLine> resolved = new ArrayList<>(required.size());
+        required.forEach((rawMaterialId, quantity) -> resolved
+                .add(new BomLine(productId, rawMaterialId, normalized(quantity))));
+        return resolved;
+    }
+
+    /**
+     * Products of quantities add up scales level after level; bring them back
+     * to the {@code numeric(18,3)} scale of the direct lines, keeping any
+     * finer digits the multiplication produced.
+     */
+    private static BigDecimal normalized(BigDecimal quantity) {
+        return quantity.setScale(Math.max(QUANTITY_SCALE, quantity.stripTrailingZeros().scale()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.yago.inventory_api.production;
+
+/**
+ * Result of a greedy pass over {@link #catalog}. {@link #remainingStock} is the
+ * scaled stock left after the pass, or {@code null} when the plan was computed
+ * on the {@code BigDecimal} path. Positions before {@link #firstPlanned} were
+ * reused from a previous plan.
+ */
+public final class GreedyPlan {
+
+    final ProductionCatalog catalog;
+    final int[] units;
+    final long[] remainingStock;
+    final int firstPlanned;
+
+    GreedyPlan(ProductionCatalog catalog, int[] units, long[] remainingStock) {
+        this(catalog, units, remainingStock, 0);
+    }
+
+    GreedyPlan(ProductionCatalog catalog, int[] units, long[] remainingStock, int firstPlanned) {
+        this.catalog = catalog;
+        this.units = units;
+        this.remainingStock = remainingStock;
+        this.firstPlanned = firstPlanned;
+    }
+
+    int bomLinesScanned() {
+        return catalog.bomOffsets[catalog.productCount()] - catalog.bomOffsets[firstPlanned];
+    }
+
+    public ProductionCatalog catalog() {
+        return catalog;
+    }
+
+    public int[] units() {
+        return units.clone();
+    }
+}
@@ -0,0 +1,238 @@
+package com.yago.inventory_api.production;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Greedy production plan: walks products in catalog order (price desc) and
+ * produces as many units of each as the remaining stock allows.
+ * <p>
+ * The default path works on scaled {@code long}s and allocates nothing per BOM
+ * line. If the catalog does not fit in that representation, or an intermediate
+ * value overflows, the plan is recomputed with {@link BigDecimal}, which gives
+ * the same result.
+ * <p>
+ * {@link #replan} reuses a previous plan: greedy decisions at a position only
+ * depend on the products before it and on the stock of the materials they
+ * use, so everything before the first product touched by a change is kept and
+ * the pass restarts from there.
+ */
+public final class GreedyPlanner {
+
+    private GreedyPlanner() {
+    }
+
+    /**
+     * @return units to produce, indexed by catalog product position
+     */
+    public static int[] plan(ProductionCatalog catalog) {
+        return planFull(catalog).units;
+    }
+
+    public static GreedyPlan planFull(ProductionCatalog catalog) {
+        if (catalog.scaled) {
+            try {
+                long[] stock = catalog.stockScaled.clone();
+                int[] units = planScaled(catalog, stock);
+                return new GreedyPlan(catalog, units, stock);
+            } catch (ArithmeticException overflow) {
+                // fall through to the exact path
+            }
+        }
+        return new GreedyPlan(catalog, planExact(catalog, catalog.stockCopy()), null);
+    }
+
+    /**
+     * Plan for {@code catalog} reusing {@code previous} where possible; the
+     * result is always identical to {@link #planFull(ProductionCatalog)}.
+     */
+    public static GreedyPlan replan(GreedyPlan previous, ProductionCatalog catalog) {
+        ProductionCatalog before = previous.catalog;
+        int start = firstAffectedPosition(before, catalog);
+        if (start < 0 || previous.remainingStock == null) {
+            return planFull(catalog);
+        }
+
+        // stock before `start` = stock left by the previous pass, plus what it consumed from
+        // `start` on, plus any change to the initial stock
+        long[] stock = previous.remainingStock.clone();
+        try {
+            for (int p = start; p < previous.units.length; p++) {
+                int u = previous.units[p];
+                for (int line = before.bomOffsets[p]; line < before.bomOffsets[p + 1] && u > 0; line++) {
+                    int m = before.bomMaterials[line];
+                    stock[m] = Math.addExact(stock[m], Math.multiplyExact(before.bomRequiredScaled[line], (long) u));
+                }
+            }
+            for (int m = 0; m < stock.length; m++) {
+                if (before.stockScaled[m] != catalog.stockScaled[m]) {
+                    stock[m] = Math.addExact(stock[m], Math.subtractExact(catalog.stockScaled[m], before.stockScaled[m]));
+                }
+            }
+
+            int[] units = Arrays.copyOf(previous.units, catalog.productCount());
+            Arrays.fill(units, start, units.length, 0);
+            planScaled(catalog, stock, units, start);
+            return new GreedyPlan(catalog, units, stock, start);
+        } catch (ArithmeticException overflow) {
+            return planFull(catalog);
+        }
+    }
+
+    /**
+     * First position whose greedy decision may differ between the two
+     * catalogs, {@code productCount()} if none, or -1 when they are not
+     * comparable position by position (different products, order or
+     * materials, or not on the scaled path).
+     */
+    static int firstAffectedPosition(ProductionCatalog before, ProductionCatalog after) {
+        if (!before.scaled || !after.scaled || before.scale != after.scale
+                || !Arrays.equals(before.productIds, after.productIds)
+                || !Arrays.equals(before.materialIds, after.materialIds)) {
+            return -1;
+        }
+
+        int start = after.productCount();
+        if (before.stockScaled != after.stockScaled) {
+            for (int m = 0; m < after.stockScaled.length; m++) {
+                if (before.stockScaled[m] != after.stockScaled[m]) {
+                    start = Math.min(start, after.firstUserOf(m));
+                }
+            }
+        }
+
+        if (before.bomOffsets != after.bomOffsets) {
+            for (int p = 0; p < start; p++) {
+                if (!sameBom(before, after, p)) {
+                    return p;
+                }
+            }
+        }
+
+        return start;
+    }
+
+    private static boolean sameBom(ProductionCatalog before, ProductionCatalog after, int p) {
+        int from = before.bomOffsets[p];
+        int to = before.bomOffsets[p + 1];
+        int offset = after.bomOffsets[p] - from;
+        if (after.bomOffsets[p + 1] - offset != to) {
+            return false;
+        }
+
+        for (int line = from; line < to; line++) {
+            if (before.bomMaterials[line] != after.bomMaterials[line + offset]
+                    || before.bomRequiredScaled[line] != after.bomRequiredScaled[line + offset]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int[] planScaled(ProductionCatalog catalog, long[] stock) {
+        return planScaled(catalog, stock, new int[catalog.productCount()], 0);
+    }
+
+    static int[] planScaled(ProductionCatalog catalog, long[] stock, int[] units, int start) {
+        int[] offsets = catalog.bomOffsets;
+        int[] materials = catalog.bomMaterials;
+        long[] required = catalog.bomRequiredScaled;
+
+        for (int p = start; p < units.length; p++) {
+            int from = offsets[p];
+            int to = offsets[p + 1];
+
+            if (from == to)
+                continue;
+
+            int maxUnits = calculateMaxUnits(materials, required, from, to, stock);
+
+            if (maxUnits <= 0)
+                continue;
+
+            for (int line = from; line < to; line++) {
+                int m = materials[line];
+                stock[m] = Math.subtractExact(stock[m], Math.multiplyExact(required[line], (long) maxUnits));
+            }
+            units[p] = maxUnits;
+        }
+
+        return units;
+    }
+
+    static int[] planExact(ProductionCatalog catalog, BigDecimal[] stock) {
+        int[] units = new int[catalog.productCount()];
+        int[] offsets = catalog.bomOffsets;
+        int[] materials = catalog.bomMaterials;
+        BigDecimal[] required = catalog.bomRequired;
+
+        for (int p = 0; p < units.length; p++) {
+            int from = offsets[p];
+            int to = offsets[p + 1];
+
+            if (from == to)
+                continue;
+
+            int maxUnits = calculateMaxUnits(materials, required, from, to, stock);
+
+            if (maxUnits <= 0)
+                continue;
+
+            BigDecimal factor = BigDecimal.valueOf(maxUnits);
+            for (int line = from; line < to; line++) {
+                int m = materials[line];
+                stock[m] = stock[m].subtract(required[line].multiply(factor));
+            }
+            units[p] = maxUnits;
+        }
+
+        return units;
+    }
+
+    /**
+     * Same contract as {@link BigDecimal#divide(BigDecimal, int, RoundingMode)}
+     * with {@code FLOOR} followed by {@link BigDecimal#intValue()}: both
+     * operands share the catalog scale, so the quotient of the unscaled values
+     * is the quotient of the quantities.
+     */
+    static int calculateMaxUnits(int[] materials, long[] required, int from, int to, long[] stock) {
+        int max = Integer.MAX_VALUE;
+
+        for (int line = from; line < to; line++) {
+            long req = required[line];
+
+            if (req <= 0) {
+                return 0;
+            }
+
+            int possible = (int) Math.floorDiv(stock[materials[line]], req);
+
+            if (possible < max) {
+                max = possible;
+            }
+        }
+
+        return max;
+    }
+
+    static int calculateMaxUnits(int[] materials, BigDecimal[] required, int from, int to, BigDecimal[] stock) {
+        int max = Integer.MAX_VALUE;
+
+        for (int line = from; line < to; line++) {
+            BigDecimal req = required[line];
+
+            if (req == null || req.signum() <= 0) {
+                return 0;
+            }
+
+            int possible = stock[materials[line]].divide(req, 0, RoundingMode.FLOOR).intValue();
+
+            if (possible < max) {
+                max = possible;
+            }
+        }
+
+        return max;
+    }
+}
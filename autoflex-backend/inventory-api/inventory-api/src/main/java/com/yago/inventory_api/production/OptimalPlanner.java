@@ -0,0 +1,396 @@
+package com.yago.inventory_api.production;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Integer branch-and-bound search for the plan with the highest total value.
+ * <p>
+ * Products are decided in catalog order, trying the largest feasible quantity
+ * first, so the first leaf is the greedy plan; the greedy result is also the
+ * initial incumbent. Nodes are pruned with the LP relaxation of the surrogate
+ * knapsack obtained by summing every material constraint normalised by its
+ * initial stock, with each product capped by the units its own BOM allows.
+ * Backtracking does not walk a quantity down one unit at a time: it jumps to
+ * the largest smaller quantity whose subtree can still beat the incumbent,
+ * or leaves the product when there is none. The first levels of the tree
+ * are split across a {@link ForkJoinPool}; below that each task runs an
+ * iterative depth-first search until the budget ends.
+ */
+@Component
+public class OptimalPlanner {
+
+    private static final double PRUNE_TOLERANCE = 0.005;
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public static class Result {
+        public final int[] units;
+        public final double upperBound;
+        public final boolean optimal;
+
+        Result(int[] units, double upperBound, boolean optimal) {
+            this.units = units;
+            this.upperBound = upperBound;
+            this.optimal = optimal;
+        }
+    }
+
+    public Result plan(ProductionCatalog catalog, int[] greedyUnits, long budgetMs) {
+        if (!catalog.scaled) {
+            return new Result(greedyUnits, Double.NaN, false);
+        }
+
+        Search search = new Search(catalog, System.nanoTime() + budgetMs * 1_000_000L);
+        search.offer(search.valueOf(greedyUnits), greedyUnits);
+
+        long[] stock = catalog.stockScaled.clone();
+        double rootBound = search.bound(0, stock, search.initialCapacity);
+
+        int splits = 31 - Integer.numberOfLeadingZeros(pool.getParallelism()) + 3;
+        pool.invoke(search.new Task(0, -1, stock, 0.0, search.initialCapacity,
+                new int[catalog.productCount()], splits));
+
+        boolean optimal = !search.timedOut;
+        return new Result(search.bestUnits, optimal ? search.bestValue : Math.max(rootBound, search.bestValue),
+                optimal);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static final class Search {
+        private final ProductionCatalog catalog;
+        private final long deadline;
+
+        private final int[] offsets;
+        private final int[] materials;
+        private final long[] required;
+        private final double[] prices;
+
+        private final double[] weights;
+        private final int[] byRatio;
+        // best price / weight among the products at a position or after it
+        private final double[] bestRatioFrom;
+        private final double initialCapacity;
+
+        private volatile boolean timedOut;
+        private volatile double bestValue = -1;
+        private int[] bestUnits;
+
+        Search(ProductionCatalog catalog, long deadline) {
+            this.catalog = catalog;
+            this.deadline = deadline;
+            this.offsets = catalog.bomOffsets;
+            this.materials = catalog.bomMaterials;
+            this.required = catalog.bomRequiredScaled;
+
+            int productCount = catalog.productCount();
+            this.prices = new double[productCount];
+            for (int p = 0; p < productCount; p++) {
+                prices[p] = catalog.prices[p].doubleValue();
+            }
+
+            long[] stock = catalog.stockScaled;
+            double[] lambda = new double[stock.length];
+            double capacity = 0;
+            for (int m = 0; m < stock.length; m++) {
+                if (stock[m] > 0) {
+                    lambda[m] = 1.0 / stock[m];
+                    capacity += 1.0;
+                }
+            }
+            this.initialCapacity = capacity;
+
+            // products that can never be produced get no weight and are left out of the bound
+            this.weights = new double[productCount];
+            for (int p = 0; p < productCount; p++) {
+                double w = 0;
+                boolean producible = offsets[p] < offsets[p + 1];
+                for (int line = offsets[p]; line < offsets[p + 1] && producible; line++) {
+                    producible = required[line] > 0 && stock[materials[line]] > 0;
+                    w += lambda[materials[line]] * required[line];
+                }
+                weights[p] = producible ? w : 0;
+            }
+
+            this.byRatio = IntStream.range(0, productCount)
+                    .filter(p -> weights[p] > 0 && prices[p] > 0)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(p -> -prices[p] / weights[p]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            this.bestRatioFrom = new double[productCount + 1];
+            for (int p = productCount - 1; p >= 0; p--) {
+                double ratio = weights[p] > 0 && prices[p] > 0 ? prices[p] / weights[p] : 0;
+                bestRatioFrom[p] = Math.max(ratio, bestRatioFrom[p + 1]);
+            }
+        }
+
+        double valueOf(int[] units) {
+            double value = 0;
+            for (int p = 0; p < units.length; p++) {
+                value += units[p] * prices[p];
+            }
+            return value;
+        }
+
+        synchronized void offer(double value, int[] units) {
+            if (value > bestValue + PRUNE_TOLERANCE || bestUnits == null) {
+                bestValue = value;
+                bestUnits = units.clone();
+            }
+        }
+
+        int maxUnits(int p, long[] stock) {
+            int from = offsets[p];
+            int to = offsets[p + 1];
+            if (from == to || prices[p] <= 0) {
+                return 0;
+            }
+
+            long max = Integer.MAX_VALUE;
+            for (int line = from; line < to; line++) {
+                if (required[line] <= 0) {
+                    return 0;
+                }
+                max = Math.min(max, Math.floorDiv(stock[materials[line]], required[line]));
+            }
+            return (int) Math.max(0, max);
+        }
+
+        void consume(int p, long[] stock, long units) {
+            for (int line = offsets[p]; line < offsets[p + 1]; line++) {
+                stock[materials[line]] -= required[line] * units;
+            }
+        }
+
+        /**
+         * Upper bound on the value still obtainable from products at position
+         * {@code from} onwards, given the remaining stock and its surrogate
+         * capacity.
+         */
+        double bound(int from, long[] stock, double capacity) {
+            double bound = 0;
+            for (int i = 0; i < byRatio.length && capacity > 0; i++) {
+                int p = byRatio[i];
+                if (p < from) {
+                    continue;
+                }
+
+                int cap = maxUnits(p, stock);
+                if (cap == 0) {
+                    continue;
+                }
+
+                double take = Math.min(cap, capacity / weights[p]);
+                bound += take * prices[p];
+                capacity -= take * weights[p];
+            }
+            return bound;
+        }
+
+        boolean prunable(double value, double bound) {
+            return value + bound <= bestValue + PRUNE_TOLERANCE;
+        }
+
+        /**
+         * Largest quantity below {@code units} of the product at {@code k}
+         * whose subtree may still beat the incumbent, or -1 when there is
+         * none. {@code stock}, {@code value} and {@code capacity} exclude the
+         * product. With {@code q} units the subtree is worth at most
+         * {@code value + q * price} plus the smaller of the bound of the rest
+         * with all of the stock and the best remaining ratio times the
+         * capacity left; the first grows with {@code q}, the second is linear
+         * in it, so the candidates form a range. Its ends are rounded outwards.
+         */
+        int nextUnits(int k, int units, long[] stock, double value, double capacity) {
+            if (units <= 0) {
+                return -1;
+            }
+            double target = bestValue + PRUNE_TOLERANCE;
+
+            double rest = bound(k + 1, stock, capacity);
+            int lo = (int) Math.max(0, Math.floor((target - value - rest) / prices[k]));
+            int hi = units - 1;
+
+            double ratio = bestRatioFrom[k + 1];
+            double slope = prices[k] - ratio * weights[k];
+            double slack = value + ratio * capacity - target;
+            if (slope < 0) {
+                hi = (int) Math.min(hi, Math.ceil(slack / -slope));
+            } else if (slope > 0) {
+                lo = (int) Math.max(lo, Math.floor(-slack / slope));
+            } else if (slack <= 0) {
+                return -1;
+            }
+            return hi >= lo ? hi : -1;
+        }
+
+        boolean pastDeadline() {
+            if (!timedOut && System.nanoTime() > deadline) {
+                timedOut = true;
+            }
+            return timedOut;
+        }
+
+        /**
+         * Explores every completion of a partial plan where positions before
+         * {@code start} are fixed and position {@code start} is limited to
+         * {@code startCap} units (no limit when negative). Backtracking moves
+         * each decided quantity to {@link #nextUnits} before returning to the
+         * previous product.
+         */
+        void depthFirst(int start, int startCap, long[] stock, double value, double capacity, int[] units) {
+            int n = units.length;
+            int[] path = new int[n];
+            int top = 0;
+            int d = start;
+            boolean descending = true;
+            int steps = 0;
+
+            while (true) {
+                if (++steps % DEADLINE_CHECK_INTERVAL == 0 && pastDeadline()) {
+                    return;
+                }
+
+                if (descending) {
+                    int u = 0;
+                    while (d < n && (u = maxUnits(d, stock)) == 0) {
+                        d++;
+                    }
+
+                    if (d == start && startCap >= 0) {
+                        u = Math.min(u, startCap);
+                        startCap = -1;
+                        if (u == 0) {
+                            d++;
+                            continue;
+                        }
+                    }
+
+                    if (d == n) {
+                        offer(value, units);
+                        descending = false;
+                        continue;
+                    }
+
+                    if (prunable(value, bound(d, stock, capacity))) {
+                        descending = false;
+                        continue;
+                    }
+
+                    consume(d, stock, u);
+                    units[d] = u;
+                    value += u * prices[d];
+                    capacity -= u * weights[d];
+                    path[top++] = d;
+                    d++;
+                } else {
+                    if (top == 0) {
+                        return;
+                    }
+
+                    int k = path[top - 1];
+                    int u = units[k];
+                    consume(k, stock, -u);
+                    units[k] = 0;
+                    value -= u * prices[k];
+                    capacity += u * weights[k];
+
+                    int next = nextUnits(k, u, stock, value, capacity);
+                    if (next < 0) {
+                        top--;
+                        continue;
+                    }
+
+                    consume(k, stock, next);
+                    units[k] = next;
+                    value += next * prices[k];
+                    capacity -= next * weights[k];
+                    d = k + 1;
+                    descending = true;
+                }
+            }
+        }
+
+        /**
+         * Decides position {@code d} for quantities in {@code [0, hi]} (the
+         * full feasible range when {@code hi} is negative), splitting the
+         * range in halves while {@code splits} allows it.
+         */
+        final class Task extends RecursiveAction {
+            private final int d;
+            private final int hi;
+            private final long[] stock;
+            private final double value;
+            private final double capacity;
+            private final int[] units;
+            private final int splits;
+
+            Task(int d, int hi, long[] stock, double value, double capacity, int[] units, int splits) {
+                this.d = d;
+                this.hi = hi;
+                this.stock = stock;
+                this.value = value;
+                this.capacity = capacity;
+                this.units = units;
+                this.splits = splits;
+            }
+
+            @Override
+            protected void compute() {
+                if (pastDeadline()) {
+                    return;
+                }
+
+                int n = units.length;
+                int p = d;
+                int u = hi;
+                if (u < 0) {
+                    while (p < n && (u = maxUnits(p, stock)) == 0) {
+                        p++;
+                    }
+                    if (p == n) {
+                        offer(value, units);
+                        return;
+                    }
+                }
+
+                if (splits <= 0) {
+                    depthFirst(p, hi, stock, value, capacity, units);
+                    return;
+                }
+
+                if (prunable(value, bound(p, stock, capacity))) {
+                    return;
+                }
+
+                long[] takenStock = stock.clone();
+                consume(p, takenStock, u);
+                int[] takenUnits = units.clone();
+                takenUnits[p] = u;
+                Task taken = new Task(p + 1, -1, takenStock, value + u * prices[p],
+                        capacity - u * weights[p], takenUnits, splits - 1);
+
+                int next = nextUnits(p, u, stock, value, capacity);
+                if (next < 0) {
+                    taken.compute();
+                    return;
+                }
+
+                Task rest = new Task(p, next, stock.clone(), value, capacity, units.clone(), splits - 1);
+                invokeAll(taken, rest);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.common.exception.NotFoundException;
+import com.yago.inventory_api.common.exception.TooManyRequestsException;
+import com.yago.inventory_api.production.dto.PlanJobResponse;
+import com.yago.inventory_api.production.dto.ProductionSuggestionResponse;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs production plans off the request threads. At most {@code concurrency}
+ * plans run at once and at most {@code maxQueued} wait; finished jobs are
+ * kept for {@code ttl} and swept lazily on every submit and lookup. At most
+ * {@code maxFinished} of them are kept, the oldest being dropped first, so a
+ * client that keeps submitting cannot fill the heap with plan results.
+ */
+@Service
+public class PlanJobService {
+
+    enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final Instant createdAt;
+        volatile Status status = Status.QUEUED;
+        volatile Instant finishedAt;
+        volatile ProductionSuggestionResponse result;
+        volatile String error;
+
+        Job(Instant createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final ProductionService productionService;
+    private final Duration ttl;
+    private final int maxFinished;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // finish order; may still hold jobs already swept by evictExpired
+    private final Deque<Job> finished = new ArrayDeque<>();
+
+    public PlanJobService(ProductionService productionService,
+            @Value("${production.jobs.concurrency:2}") int concurrency,
+            @Value("${production.jobs.max-queued:100}") int maxQueued,
+            @Value("${production.jobs.ttl:10m}") Duration ttl,
+            @Value("${production.jobs.max-finished:100}") int maxFinished) {
+        this.productionService = productionService;
+        this.ttl = ttl;
+        this.maxFinished = maxFinished;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), r -> {
+                    Thread t = new Thread(r, "plan-job-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public PlanJobResponse submit(PlanningStrategy strategy, long budgetMs) {
+        ProductionService.checkBudget(strategy, budgetMs);
+        evictExpired();
+
+        Job job = new Job(Instant.now());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, strategy, budgetMs));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new TooManyRequestsException("Too many planning jobs queued; try again later.");
+        }
+        return toResponse(job);
+    }
+
+    public PlanJobResponse find(String id) {
+        evictExpired();
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new NotFoundException("Planning job not found.");
+        }
+        return toResponse(job);
+    }
+
+    private void run(Job job, PlanningStrategy strategy, long budgetMs) {
+        job.status = Status.RUNNING;
+        try {
+            job.result = productionService.suggest(strategy, budgetMs);
+            job.finishedAt = Instant.now();
+            job.status = Status.DONE;
+        } catch (RuntimeException e) {
+            job.error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            job.finishedAt = Instant.now();
+            job.status = Status.FAILED;
+        }
+        retain(job);
+    }
+
+    private void retain(Job job) {
+        synchronized (finished) {
+            finished.addLast(job);
+            while (finished.size() > maxFinished) {
+                jobs.remove(finished.removeFirst().id);
+            }
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private PlanJobResponse toResponse(Job job) {
+        PlanJobResponse r = new PlanJobResponse();
+        r.id = job.id;
+        // status is written last by the job, so reading it first makes the other fields visible
+        Status status = job.status;
+        r.status = status.name().toLowerCase(Locale.ROOT);
+        r.createdAt = job.createdAt;
+        if (status == Status.DONE || status == Status.FAILED) {
+            r.finishedAt = job.finishedAt;
+            r.result = job.result;
+            r.error = job.error;
+        }
+        return r;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,16 @@
+package com.yago.inventory_api.production;
+
+import java.util.Locale;
+
+public enum PlanningStrategy {
+    GREEDY,
+    OPTIMAL;
+
+    public static PlanningStrategy from(String value) {
+        try {
+            return PlanningStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown planning strategy: " + value);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.product.Product;
+import com.yago.inventory_api.rawmaterial.RawMaterial;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Immutable, pre-compiled view of the catalog used by the planner.
+ * Products keep the repository order (price desc) and their BOM lines are
+ * stored in CSR form: the lines of product {@code p} live in
+ * {@code [bomOffsets[p], bomOffsets[p + 1])} of {@code bomMaterials} (dense
+ * raw-material index) and {@code bomRequired}. The reverse index lists, for
+ * material {@code m}, the positions of the products using it in ascending
+ * order in {@code [userOffsets[m], userOffsets[m + 1])} of {@code users}.
+ * <p>
+ * Stock and required quantities are also kept as {@code long}s scaled to a
+ * common {@code scale} (3 for values coming from the database). When any
+ * value does not fit, {@code scaled} is false and only the {@link BigDecimal}
+ * arrays may be used.
+ */
+public final class ProductionCatalog {
+
+    private static final long OVERFLOW = Long.MIN_VALUE;
+
+    final long[] productIds;
+    final String[] productCodes;
+    final String[] productNames;
+    final BigDecimal[] prices;
+
+    final int[] bomOffsets;
+    final int[] bomMaterials;
+    final BigDecimal[] bomRequired;
+
+    final long[] materialIds;
+    final BigDecimal[] stock;
+
+    final int[] userOffsets;
+    final int[] users;
+
+    final boolean scaled;
+    final int scale;
+    final long[] bomRequiredScaled;
+    final long[] stockScaled;
+
+    private final Map<Long, Integer> productIndexById;
+    private final Map<Long, Integer> materialIndexById;
+
+    private ProductionCatalog(ProductionCatalog base, BigDecimal[] stock, boolean scaled, int scale,
+            long[] bomRequiredScaled, long[] stockScaled) {
+        this.productIds = base.productIds;
+        this.productCodes = base.productCodes;
+        this.productNames = base.productNames;
+        this.prices = base.prices;
+        this.bomOffsets = base.bomOffsets;
+        this.bomMaterials = base.bomMaterials;
+        this.bomRequired = base.bomRequired;
+        this.materialIds = base.materialIds;
+        this.stock = stock;
+        this.userOffsets = base.userOffsets;
+        this.users = base.users;
+        this.scaled = scaled;
+        this.scale = scale;
+        this.bomRequiredScaled = bomRequiredScaled;
+        this.stockScaled = stockScaled;
+        this.productIndexById = base.productIndexById;
+        this.materialIndexById = base.materialIndexById;
+    }
+
+    private ProductionCatalog(long[] productIds, String[] productCodes, String[] productNames, BigDecimal[] prices,
+            int[] bomOffsets, int[] bomMaterials, BigDecimal[] bomRequired, long[] materialIds, BigDecimal[] stock,
+            Map<Long, Integer> productIndexById, Map<Long, Integer> materialIndexById) {
+        this.productIds = productIds;
+        this.productCodes = productCodes;
+        this.productNames = productNames;
+        this.prices = prices;
+        this.bomOffsets = bomOffsets;
+        this.bomMaterials = bomMaterials;
+        this.bomRequired = bomRequired;
+        this.materialIds = materialIds;
+        this.stock = stock;
+        this.productIndexById = productIndexById;
+        this.materialIndexById = materialIndexById;
+
+        this.userOffsets = new int[materialIds.length + 1];
+        for (int m : bomMaterials) {
+            userOffsets[m + 1]++;
+        }
+        for (int m = 0; m < materialIds.length; m++) {
+            userOffsets[m + 1] += userOffsets[m];
+        }
+        this.users = new int[bomMaterials.length];
+        int[] next = Arrays.copyOf(userOffsets, materialIds.length);
+        for (int p = 0; p < productIds.length; p++) {
+            for (int line = bomOffsets[p]; line < bomOffsets[p + 1]; line++) {
+                users[next[bomMaterials[line]]++] = p;
+            }
+        }
+
+        int scale = Math.max(maxScale(bomRequired), maxScale(stock));
+        long[] bomRequiredScaled = new long[bomRequired.length];
+        long[] stockScaled = new long[stock.length];
+        boolean scaled = true;
+        for (int i = 0; i < bomRequired.length && scaled; i++) {
+            // a missing quantity makes the product unproducible, exactly like a non-positive one
+            bomRequiredScaled[i] = bomRequired[i] == null ? 0 : toScaled(bomRequired[i], scale);
+            scaled = bomRequired[i] == null || bomRequiredScaled[i] != OVERFLOW;
+        }
+        for (int i = 0; i < stock.length && scaled; i++) {
+            stockScaled[i] = stock[i] == null ? OVERFLOW : toScaled(stock[i], scale);
+            scaled = stockScaled[i] != OVERFLOW;
+        }
+
+        this.scaled = scaled;
+        this.scale = scale;
+        this.bomRequiredScaled = bomRequiredScaled;
+        this.stockScaled = stockScaled;
+    }
+
+    private static int maxScale(BigDecimal[] values) {
+        int scale = 0;
+        for (BigDecimal v : values) {
+            if (v != null) {
+                scale = Math.max(scale, v.scale());
+            }
+        }
+        return scale;
+    }
+
+    private static long toScaled(BigDecimal value, int scale) {
+        BigInteger unscaled = value.setScale(scale).unscaledValue();
+        return unscaled.bitLength() < Long.SIZE - 1 ? unscaled.longValue() : OVERFLOW;
+    }
+
+    public static ProductionCatalog compile(List<RawMaterial> rawMaterials, List<Product> productsByPriceDesc,
+            List<BomLine> bomLines) {
+        Map<Long, Integer> materialIndexById = new HashMap<>();
+        List<BigDecimal> stockList = new ArrayList<>();
+        List<Long> materialIdList = new ArrayList<>();
+        for (RawMaterial rm : rawMaterials) {
+            materialIndexById.put(rm.getId(), materialIdList.size());
+            materialIdList.add(rm.getId());
+            stockList.add(rm.getStockQuantity());
+        }
+
+        Map<Long, List<BomLine>> bomByProductId = new HashMap<>();
+        for (BomLine line : bomLines) {
+            bomByProductId.computeIfAbsent(line.getProductId(), id -> new ArrayList<>()).add(line);
+            if (!materialIndexById.containsKey(line.getRawMaterialId())) {
+                materialIndexById.put(line.getRawMaterialId(), materialIdList.size());
+                materialIdList.add(line.getRawMaterialId());
+                stockList.add(BigDecimal.ZERO);
+            }
+        }
+
+        int productCount = productsByPriceDesc.size();
+        long[] productIds = new long[productCount];
+        String[] productCodes = new String[productCount];
+        String[] productNames = new String[productCount];
+        BigDecimal[] prices = new BigDecimal[productCount];
+        int[] bomOffsets = new int[productCount + 1];
+        int[] bomMaterials = new int[bomLines.size()];
+        BigDecimal[] bomRequired = new BigDecimal[bomLines.size()];
+        Map<Long, Integer> productIndexById = new HashMap<>();
+
+        int line = 0;
+        for (int p = 0; p < productCount; p++) {
+            Product product = productsByPriceDesc.get(p);
+            productIds[p] = product.getId();
+            productCodes[p] = product.getCode();
+            productNames[p] = product.getName();
+            prices[p] = product.getPrice();
+            productIndexById.put(product.getId(), p);
+
+            bomOffsets[p] = line;
+            for (BomLine bl : bomByProductId.getOrDefault(product.getId(), List.of())) {
+                bomMaterials[line] = materialIndexById.get(bl.getRawMaterialId());
+                bomRequired[line] = bl.getRequiredQuantity();
+                line++;
+            }
+        }
+        bomOffsets[productCount] = line;
+
+        long[] materialIds = new long[materialIdList.size()];
+        for (int m = 0; m < materialIds.length; m++) {
+            materialIds[m] = materialIdList.get(m);
+        }
+
+        return new ProductionCatalog(productIds, productCodes, productNames, prices, bomOffsets,
+                Arrays.copyOf(bomMaterials, line), Arrays.copyOf(bomRequired, line), materialIds,
+                stockList.toArray(new BigDecimal[0]), productIndexById, materialIndexById);
+    }
+
+    /**
+     * Copy of this catalog with the stock of some materials replaced, sharing
+     * every other array. Keys are dense material indexes.
+     */
+    public ProductionCatalog withStock(Map<Integer, BigDecimal> stockByMaterialIndex) {
+        BigDecimal[] newStock = stock.clone();
+        stockByMaterialIndex.forEach((m, value) -> newStock[m] = value);
+
+        if (scaled) {
+            long[] newStockScaled = stockScaled.clone();
+            boolean fits = true;
+            for (Map.Entry<Integer, BigDecimal> e : stockByMaterialIndex.entrySet()) {
+                BigDecimal value = e.getValue();
+                long v = value == null || value.scale() > scale ? OVERFLOW : toScaled(value, scale);
+                newStockScaled[e.getKey()] = v;
+                fits &= v != OVERFLOW;
+            }
+            if (fits) {
+                return new ProductionCatalog(this, newStock, true, scale, bomRequiredScaled, newStockScaled);
+            }
+        }
+
+        return new ProductionCatalog(productIds, productCodes, productNames, prices, bomOffsets, bomMaterials,
+                bomRequired, materialIds, newStock, productIndexById, materialIndexById);
+    }
+
+    /**
+     * Copy of this catalog with the price of some products replaced. Keys are
+     * product positions in this catalog; products are re-sorted by the new
+     * prices, keeping the current order between equal prices.
+     */
+    public ProductionCatalog withPrices(Map<Integer, BigDecimal> priceByProductIndex) {
+        BigDecimal[] newPrices = prices.clone();
+        priceByProductIndex.forEach((p, value) -> newPrices[p] = value);
+
+        int productCount = productIds.length;
+        Integer[] order = new Integer[productCount];
+        for (int p = 0; p < productCount; p++) {
+            order[p] = p;
+        }
+        // object sort is stable
+        Arrays.sort(order, (a, b) -> newPrices[b].compareTo(newPrices[a]));
+
+        long[] ids = new long[productCount];
+        String[] codes = new String[productCount];
+        String[] names = new String[productCount];
+        BigDecimal[] sortedPrices = new BigDecimal[productCount];
+        int[] offsets = new int[productCount + 1];
+        int[] materials = new int[bomMaterials.length];
+        BigDecimal[] required = new BigDecimal[bomRequired.length];
+        Map<Long, Integer> indexById = new HashMap<>();
+
+        int line = 0;
+        for (int p = 0; p < productCount; p++) {
+            int from = order[p];
+            ids[p] = productIds[from];
+            codes[p] = productCodes[from];
+            names[p] = productNames[from];
+            sortedPrices[p] = newPrices[from];
+            indexById.put(ids[p], p);
+
+            offsets[p] = line;
+            for (int l = bomOffsets[from]; l < bomOffsets[from + 1]; l++) {
+                materials[line] = bomMaterials[l];
+                required[line] = bomRequired[l];
+                line++;
+            }
+        }
+        offsets[productCount] = line;
+
+        return new ProductionCatalog(ids, codes, names, sortedPrices, offsets, materials, required, materialIds,
+                stock, indexById, materialIndexById);
+    }
+
+    /**
+     * Raw-material requirements of producing {@code units[i]} of the product
+     * at position {@code positions[i]}: the sparse row vector of units times
+     * the CSR product × material matrix, indexed by dense material index.
+     */
+    public BigDecimal[] requirements(int[] positions, long[] units) {
+        BigDecimal[] required = new BigDecimal[materialIds.length];
+        for (int i = 0; i < positions.length; i++) {
+            int p = positions[i];
+            BigDecimal u = BigDecimal.valueOf(units[i]);
+            for (int line = bomOffsets[p]; line < bomOffsets[p + 1]; line++) {
+                if (bomRequired[line] == null) {
+                    continue;
+                }
+                int m = bomMaterials[line];
+                BigDecimal quantity = bomRequired[line].multiply(u);
+                required[m] = required[m] == null ? quantity : required[m].add(quantity);
+            }
+        }
+        return required;
+    }
+
+    boolean hasBom(int p) {
+        return bomOffsets[p] < bomOffsets[p + 1];
+    }
+
+    public int productCount() {
+        return productIds.length;
+    }
+
+    public int materialCount() {
+        return materialIds.length;
+    }
+
+    public BigDecimal[] stockCopy() {
+        return stock.clone();
+    }
+
+    public Integer productIndexOf(Long productId) {
+        return productIndexById.get(productId);
+    }
+
+    public Integer materialIndexOf(Long rawMaterialId) {
+        return materialIndexById.get(rawMaterialId);
+    }
+
+    /**
+     * Position of the first product (in price order) whose BOM uses material
+     * {@code m}, or {@link #productCount()} when no product uses it.
+     */
+    int firstUserOf(int m) {
+        return userOffsets[m] < userOffsets[m + 1] ? users[userOffsets[m]] : productIds.length;
+    }
+}
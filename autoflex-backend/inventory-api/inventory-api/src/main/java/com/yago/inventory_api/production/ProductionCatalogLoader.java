@@ -0,0 +1,85 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.bom.ComponentLine;
+import com.yago.inventory_api.bom.ProductComponentRepository;
+import com.yago.inventory_api.bom.ProductMaterialRepository;
+import com.yago.inventory_api.common.etag.CatalogVersion;
+import com.yago.inventory_api.product.Product;
+import com.yago.inventory_api.product.ProductRepository;
+import com.yago.inventory_api.production.ProductionMetrics.Phase;
+import com.yago.inventory_api.rawmaterial.RawMaterial;
+import com.yago.inventory_api.rawmaterial.RawMaterialRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads the catalog in read-only transactions, from the replica unless the
+ * caller pinned the primary. Every load also returns the catalog version,
+ * read first in the same transaction, so the data is at least that recent.
+ */
+@Component
+public class ProductionCatalogLoader {
+
+    private final ProductRepository productRepository;
+    private final ProductMaterialRepository productMaterialRepository;
+    private final ProductComponentRepository productComponentRepository;
+    private final RawMaterialRepository rawMaterialRepository;
+    private final CatalogVersion catalogVersion;
+    private final ProductionMetrics metrics;
+    private final BomFlattener flattener = new BomFlattener();
+
+    public ProductionCatalogLoader(
+            ProductRepository productRepository,
+            ProductMaterialRepository productMaterialRepository,
+            ProductComponentRepository productComponentRepository,
+            RawMaterialRepository rawMaterialRepository,
+            CatalogVersion catalogVersion,
+            ProductionMetrics metrics) {
+        this.productRepository = productRepository;
+        this.productMaterialRepository = productMaterialRepository;
+        this.productComponentRepository = productComponentRepository;
+        this.rawMaterialRepository = rawMaterialRepository;
+        this.catalogVersion = catalogVersion;
+        this.metrics = metrics;
+    }
+
+    record Loaded<T>(T value, long version) {
+    }
+
+    @Transactional(readOnly = true)
+    public ProductionCatalog load() {
+        return load(null).value();
+    }
+
+    /**
+     * @param changedProductIds products whose BOM changed since the previous
+     *                          load, or {@code null} when that is unknown; the
+     *                          flattened BOMs of every other product are reused
+     */
+    @Transactional(readOnly = true)
+    public Loaded<ProductionCatalog> load(Set<Long> changedProductIds) {
+        long version = catalogVersion.read();
+        return new Loaded<>(compile(changedProductIds), version);
+    }
+
+    private ProductionCatalog compile(Set<Long> changedProductIds) {
+        List<RawMaterial> rawMaterials = metrics.time(Phase.STOCK_LOAD, rawMaterialRepository::findAll);
+        List<Product> products = metrics.time(Phase.PRODUCT_LOAD, productRepository::findAllByOrderByPriceDesc);
+        List<BomLine> bomLines = metrics.time(Phase.BOM_LOAD, productMaterialRepository::findAllBomLines);
+        List<ComponentLine> componentLines = metrics.time(Phase.BOM_LOAD,
+                productComponentRepository::findAllComponentLines);
+        return metrics.time(Phase.COMPILE, () -> ProductionCatalog.compile(rawMaterials, products,
+                flattener.flatten(bomLines, componentLines, changedProductIds)));
+    }
+
+    @Transactional(readOnly = true)
+    public Loaded<List<RawMaterial>> loadRawMaterials(Collection<Long> ids) {
+        long version = catalogVersion.read();
+        return new Loaded<>(metrics.time(Phase.STOCK_LOAD, () -> rawMaterialRepository.findAllById(ids)), version);
+    }
+}
@@ -0,0 +1,202 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.common.datasource.PrimaryReads;
+import com.yago.inventory_api.common.etag.CatalogVersion;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
+import com.yago.inventory_api.production.ProductionCatalogLoader.Loaded;
+import com.yago.inventory_api.rawmaterial.RawMaterial;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Keeps the compiled catalog and its greedy plan in memory and refreshes
+ * them after writes commit.
+ * <p>
+ * Each snapshot is stamped with the generation it was built under, so a
+ * refresh racing with a write is never served once the write has been
+ * observed. When only raw materials were updated the snapshot is patched
+ * with their new stock instead of reloading the catalog, and the greedy
+ * plan is recomputed from the first product that uses one of them. On a
+ * reload the products whose BOM changed are handed to the loader, so only
+ * their flattened BOMs (and those of their ancestors) are rebuilt.
+ * <p>
+ * Change events only cover this instance. Each snapshot therefore also
+ * carries the {@link CatalogVersion} it was loaded at and is rebuilt once
+ * the database version moves past it. Patches and partial BOM rebuilds are
+ * only trusted when every version in between was committed here; anything
+ * else (another instance, an import elsewhere, manual SQL) forces a full
+ * reload. A snapshot only has to be as recent as the data the caller would
+ * otherwise read ({@link CatalogVersion#replica()}), and rebuilds read from
+ * the replica unless local writes are pending or it is behind the snapshot.
+ */
+@Component
+public class ProductionCatalogProvider {
+
+    private final ProductionCatalogLoader loader;
+    private final CatalogVersion catalogVersion;
+    private final ProductionMetrics metrics;
+    private final Object loadLock = new Object();
+    private final Object pendingLock = new Object();
+
+    private volatile long generation;
+    private Set<Long> changedRawMaterialIds = new HashSet<>();
+    private Set<Long> changedProductIds = new HashSet<>();
+    private boolean reloadRequired;
+    private boolean allProductsChanged;
+
+    private volatile Snapshot snapshot;
+
+    public ProductionCatalogProvider(ProductionCatalogLoader loader, CatalogVersion catalogVersion,
+            ProductionMetrics metrics) {
+        this.loader = loader;
+        this.catalogVersion = catalogVersion;
+        this.metrics = metrics;
+    }
+
+    public ProductionCatalog current() {
+        return currentPlan().catalog;
+    }
+
+    public GreedyPlan currentPlan() {
+        Snapshot s = snapshot;
+        if (s != null && s.generation == generation && s.version >= catalogVersion.replica()) {
+            return s.plan;
+        }
+
+        synchronized (loadLock) {
+            s = snapshot;
+            long required = catalogVersion.replica();
+            long gen;
+            Set<Long> changed;
+            Set<Long> changedProducts;
+            boolean reload;
+            synchronized (pendingLock) {
+                gen = generation;
+                if (s != null && s.generation == gen && s.version >= required) {
+                    return s.plan;
+                }
+                changed = changedRawMaterialIds;
+                changedProducts = allProductsChanged ? null : changedProductIds;
+                reload = reloadRequired;
+                changedRawMaterialIds = new HashSet<>();
+                changedProductIds = new HashSet<>();
+                reloadRequired = false;
+                allProductsChanged = false;
+            }
+
+            Snapshot next;
+            try {
+                Snapshot previous = s;
+                // the replica may still miss local writes, and must not take the snapshot back
+                boolean primary = s != null && (s.generation != gen || catalogVersion.replica() < s.version);
+                next = primary
+                        ? PrimaryReads.call(() -> build(previous, changed, changedProducts, reload, gen, required))
+                        : build(previous, changed, changedProducts, reload, gen, required);
+            } catch (RuntimeException e) {
+                // hand the changes back, or the next call would stamp the old catalog as current
+                restorePending(changed, changedProducts);
+                throw e;
+            }
+            snapshot = next;
+            return next.plan;
+        }
+    }
+
+    private Snapshot build(Snapshot previous, Set<Long> changed, Set<Long> changedProducts, boolean reload,
+            long gen, long required) {
+        Loaded<ProductionCatalog> loaded = null;
+        if (previous != null && !reload) {
+            loaded = patchStock(previous, changed);
+        }
+        if (loaded == null) {
+            // after a write from elsewhere any BOM may have changed
+            boolean partial = changedProducts != null && onlyLocalChanges(previous, required);
+            loaded = loader.load(partial ? changedProducts : null);
+            if (partial && !onlyLocalChanges(previous, loaded.version())) {
+                loaded = loader.load(null);
+            }
+        }
+
+        ProductionCatalog catalog = loaded.value();
+        GreedyPlan plan = metrics.time(ProductionMetrics.Phase.COMPUTE, () -> previous == null
+                ? GreedyPlanner.planFull(catalog)
+                : GreedyPlanner.replan(previous.plan, catalog));
+        metrics.bomLinesScanned(plan.bomLinesScanned());
+        return new Snapshot(plan, gen, loaded.version());
+    }
+
+    private boolean onlyLocalChanges(Snapshot previous, long version) {
+        return previous != null
+                && (version <= previous.version || catalogVersion.committedHere(previous.version, version));
+    }
+
+    private void restorePending(Set<Long> changed, Set<Long> changedProducts) {
+        synchronized (pendingLock) {
+            changedRawMaterialIds.addAll(changed);
+            if (changedProducts == null) {
+                allProductsChanged = true;
+            } else {
+                changedProductIds.addAll(changedProducts);
+            }
+            // the loader may have been left half way: rebuild from scratch
+            reloadRequired = true;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (pendingLock) {
+            if (event.getKind() == CatalogChangedEvent.Kind.RAW_MATERIAL && event.getRawMaterialId() != null) {
+                changedRawMaterialIds.add(event.getRawMaterialId());
+            } else {
+                reloadRequired = true;
+            }
+            if (event.getKind() != CatalogChangedEvent.Kind.RAW_MATERIAL) {
+                if (event.getProductId() == null) {
+                    allProductsChanged = true;
+                } else {
+                    changedProductIds.add(event.getProductId());
+                }
+            }
+            generation++;
+        }
+    }
+
+    /**
+     * @return the patched catalog, or {@code null} when a changed material
+     *         was created or deleted, or another instance wrote in between,
+     *         and the catalog has to be reloaded
+     */
+    private Loaded<ProductionCatalog> patchStock(Snapshot previous, Set<Long> rawMaterialIds) {
+        ProductionCatalog catalog = previous.plan.catalog;
+        if (rawMaterialIds.isEmpty()) {
+            // versions bumped here without a catalog event (stock compaction) leave the catalog as it is
+            long current = catalogVersion.current();
+            return onlyLocalChanges(previous, current)
+                    ? new Loaded<>(catalog, Math.max(previous.version, current))
+                    : null;
+        }
+
+        Loaded<List<RawMaterial>> loaded = loader.loadRawMaterials(rawMaterialIds);
+        List<RawMaterial> rawMaterials = loaded.value();
+        if (rawMaterials.size() != rawMaterialIds.size() || !onlyLocalChanges(previous, loaded.version())) {
+            return null;
+        }
+
+        Map<Integer, BigDecimal> stockByMaterialIndex = new HashMap<>();
+        for (RawMaterial rm : rawMaterials) {
+            Integer m = catalog.materialIndexOf(rm.getId());
+            if (m == null) {
+                return null;
+            }
+            stockByMaterialIndex.put(m, rm.getStockQuantity());
+        }
+        return new Loaded<>(catalog.withStock(stockByMaterialIndex), loaded.version());
+    }
+
+    private record Snapshot(GreedyPlan plan, long generation, long version) {
+    }
+}
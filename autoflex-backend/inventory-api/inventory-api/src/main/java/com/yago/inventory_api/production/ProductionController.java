@@ -1,22 +1,130 @@
 package com.yago.inventory_api.production;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.yago.inventory_api.production.dto.PlanJobResponse;
+import com.yago.inventory_api.production.dto.ProductionOrderLineRequest;
+import com.yago.inventory_api.production.dto.ProductionRequirementsResponse;
+import com.yago.inventory_api.production.dto.ProductionScenarioRequest;
 import com.yago.inventory_api.production.dto.ProductionSuggestionResponse;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import com.yago.inventory_api.production.dto.ProductionSuggestionSummaryResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/production")
 public class ProductionController {
 
+    private static final int FLUSH_EVERY = 256;
+
     private final ProductionService service;
+    private final PlanJobService planJobs;
+    private final SuggestionStreamService suggestionStream;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter lineWriter;
 
-    public ProductionController(ProductionService service) {
+    public ProductionController(ProductionService service, PlanJobService planJobs,
+            SuggestionStreamService suggestionStream, ObjectMapper objectMapper) {
         this.service = service;
+        this.planJobs = planJobs;
+        this.suggestionStream = suggestionStream;
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @GetMapping("/suggestions")
-    public ProductionSuggestionResponse suggest() {
-        return service.suggest();
+    public ProductionSuggestionResponse suggest(
+            @RequestParam(defaultValue = "greedy") String strategy,
+            @RequestParam(defaultValue = "200") long budgetMs) {
+        return service.suggest(PlanningStrategy.from(strategy), budgetMs);
+    }
+
+    /**
+     * One JSON object per line for each item, followed by a summary line with
+     * the totals. Items are written as they are mapped, so nothing but the
+     * plan itself is held in memory.
+     */
+    @GetMapping(value = "/suggestions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> suggestStream(
+            @RequestParam(defaultValue = "greedy") String strategy,
+            @RequestParam(defaultValue = "200") long budgetMs) {
+        ProductionPlan plan = service.plan(PlanningStrategy.from(strategy), budgetMs);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // lines are separated by the '\n' written after each value, not by Jackson's default space
+                generator.setRootValueSeparator(null);
+                int[] written = { 0 };
+                ProductionSuggestionSummaryResponse summary = service.emit(plan, item -> {
+                    writeLine(generator, item);
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        flush(generator);
+                    }
+                });
+                writeLine(generator, summary);
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping("/scenarios")
+    public List<ProductionSuggestionResponse> evaluateScenarios(
+            @RequestParam(defaultValue = "greedy") String strategy,
+            @RequestParam(defaultValue = "200") long budgetMs,
+            @Valid @RequestBody List<@Valid ProductionScenarioRequest> scenarios) {
+        return service.evaluateScenarios(scenarios, PlanningStrategy.from(strategy), budgetMs);
+    }
+
+    @PostMapping("/requirements")
+    public ProductionRequirementsResponse requirements(
+            @Valid @RequestBody List<@Valid ProductionOrderLineRequest> lines) {
+        return service.requirements(lines);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return suggestionStream.subscribe();
+    }
+
+    @PostMapping("/plans")
+    public ResponseEntity<PlanJobResponse> submitPlan(
+            @RequestParam(defaultValue = "greedy") String strategy,
+            @RequestParam(defaultValue = "200") long budgetMs) {
+        PlanJobResponse job = planJobs.submit(PlanningStrategy.from(strategy), budgetMs);
+        return ResponseEntity.accepted().location(URI.create("/production/plans/" + job.id)).body(job);
+    }
+
+    @GetMapping("/plans/{id}")
+    public PlanJobResponse findPlan(@PathVariable String id) {
+        return planJobs.find(id);
+    }
+
+    private void writeLine(JsonGenerator generator, Object value) {
+        try {
+            lineWriter.writeValue(generator, value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(JsonGenerator generator) {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,73 @@
+package com.yago.inventory_api.production;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the planning pipeline. Every phase is recorded under
+ * {@code production.plan.phase} with a {@code phase} tag so the phases of
+ * one request add up to {@code production.plan}.
+ */
+@Component
+public class ProductionMetrics {
+
+    public enum Phase {
+        STOCK_LOAD,
+        PRODUCT_LOAD,
+        BOM_LOAD,
+        COMPILE,
+        COMPUTE,
+        MAPPING
+    }
+
+    private final MeterRegistry registry;
+    private final Timer[] phases = new Timer[Phase.values().length];
+    private final Counter itemsProduced;
+    private final Counter bomLinesScanned;
+
+    public ProductionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            phases[phase.ordinal()] = Timer.builder("production.plan.phase")
+                    .description("Time spent in one phase of production planning")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        this.itemsProduced = Counter.builder("production.plan.items")
+                .description("Suggestion items produced")
+                .register(registry);
+        this.bomLinesScanned = Counter.builder("production.plan.bom.lines.scanned")
+                .description("BOM lines scanned by the greedy planner")
+                .register(registry);
+    }
+
+    public <T> T time(Phase phase, Supplier<T> work) {
+        return phases[phase.ordinal()].record(work);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, PlanningStrategy strategy) {
+        sample.stop(Timer.builder("production.plan")
+                .description("End-to-end production planning")
+                .tag("strategy", strategy.name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void itemsProduced(int count) {
+        itemsProduced.increment(count);
+    }
+
+    public void bomLinesScanned(int count) {
+        bomLinesScanned.increment(count);
+    }
+}
@@ -0,0 +1,27 @@
+package com.yago.inventory_api.production;
+
+/**
+ * Units chosen for each catalog position by one of the planners, plus the
+ * optimality information of the optimal strategy.
+ */
+public final class ProductionPlan {
+
+    final ProductionCatalog catalog;
+    final int[] units;
+    final PlanningStrategy strategy;
+    final double upperBound;
+    final boolean optimal;
+
+    ProductionPlan(ProductionCatalog catalog, int[] units, PlanningStrategy strategy, double upperBound,
+            boolean optimal) {
+        this.catalog = catalog;
+        this.units = units;
+        this.strategy = strategy;
+        this.upperBound = upperBound;
+        this.optimal = optimal;
+    }
+
+    static ProductionPlan greedy(GreedyPlan plan) {
+        return new ProductionPlan(plan.catalog, plan.units, PlanningStrategy.GREEDY, Double.NaN, false);
+    }
+}
@@ -1,102 +1,273 @@
 package com.yago.inventory_api.production;
 
-import com.yago.inventory_api.bom.ProductMaterial;
-import com.yago.inventory_api.bom.ProductMaterialRepository;
-import com.yago.inventory_api.product.Product;
-import com.yago.inventory_api.product.ProductRepository;
+import com.yago.inventory_api.common.exception.NotFoundException;
+import com.yago.inventory_api.production.dto.MaterialRequirementResponse;
+import com.yago.inventory_api.production.dto.ProductionOrderLineRequest;
+import com.yago.inventory_api.production.dto.ProductionRequirementsResponse;
+import com.yago.inventory_api.production.dto.ProductionScenarioRequest;
 import com.yago.inventory_api.production.dto.ProductionSuggestionItemResponse;
 import com.yago.inventory_api.production.dto.ProductionSuggestionResponse;
-import com.yago.inventory_api.rawmaterial.RawMaterial;
-import com.yago.inventory_api.rawmaterial.RawMaterialRepository;
+import com.yago.inventory_api.production.dto.ProductionSuggestionSummaryResponse;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 @Service
 public class ProductionService {
-    private final ProductRepository productRepository;
-    private final ProductMaterialRepository productMaterialRepository;
-    private final RawMaterialRepository rawMaterialRepository;
-
-    public ProductionService(
-            ProductRepository productRepository,
-            ProductMaterialRepository productMaterialRepository,
-            RawMaterialRepository rawMaterialRepository) {
-        this.productRepository = productRepository;
-        this.productMaterialRepository = productMaterialRepository;
-        this.rawMaterialRepository = rawMaterialRepository;
+    private static final long MAX_BUDGET_MS = 10_000;
+    private static final int MAX_SCENARIOS = 100;
+
+    private final ProductionCatalogProvider catalogProvider;
+    private final OptimalPlanner optimalPlanner;
+    private final ProductionMetrics metrics;
+
+    public ProductionService(ProductionCatalogProvider catalogProvider, OptimalPlanner optimalPlanner,
+            ProductionMetrics metrics) {
+        this.catalogProvider = catalogProvider;
+        this.optimalPlanner = optimalPlanner;
+        this.metrics = metrics;
     }
 
     public ProductionSuggestionResponse suggest() {
-        Map<Long, BigDecimal> stockByRawMaterialId = new HashMap<>();
-        for (RawMaterial rm : rawMaterialRepository.findAll()) {
-            stockByRawMaterialId.put(rm.getId(), rm.getStockQuantity());
+        return suggest(PlanningStrategy.GREEDY, 0);
+    }
+
+    public ProductionSuggestionResponse suggest(PlanningStrategy strategy, long budgetMs) {
+        ProductionPlan plan = plan(strategy, budgetMs);
+        List<ProductionSuggestionItemResponse> items = new ArrayList<>();
+        ProductionSuggestionSummaryResponse summary = metrics.time(ProductionMetrics.Phase.MAPPING,
+                () -> emit(plan, items::add));
+        return toResponse(items, summary);
+    }
+
+    private static ProductionSuggestionResponse toResponse(List<ProductionSuggestionItemResponse> items,
+            ProductionSuggestionSummaryResponse summary) {
+        ProductionSuggestionResponse resp = new ProductionSuggestionResponse();
+        resp.items = items;
+        resp.totalValue = summary.totalValue;
+        resp.strategy = summary.strategy;
+        resp.upperBound = summary.upperBound;
+        resp.gap = summary.gap;
+        resp.optimal = summary.optimal;
+        return resp;
+    }
+
+    public ProductionPlan plan(PlanningStrategy strategy, long budgetMs) {
+        checkBudget(strategy, budgetMs);
+        Timer.Sample sample = metrics.start();
+        try {
+            GreedyPlan greedy = catalogProvider.currentPlan();
+            if (strategy == PlanningStrategy.GREEDY) {
+                return ProductionPlan.greedy(greedy);
+            }
+
+            OptimalPlanner.Result result = metrics.time(ProductionMetrics.Phase.COMPUTE,
+                    () -> optimalPlanner.plan(greedy.catalog, greedy.units, budgetMs));
+            return new ProductionPlan(greedy.catalog, result.units, PlanningStrategy.OPTIMAL, result.upperBound,
+                    result.optimal);
+        } finally {
+            metrics.stop(sample, strategy);
         }
+    }
 
-        List<Product> products = productRepository.findAllByOrderByPriceDesc();
+    /**
+     * Evaluates every scenario against one snapshot of the catalog, in
+     * parallel, without writing anything. Results follow the request order.
+     */
+    public List<ProductionSuggestionResponse> evaluateScenarios(List<ProductionScenarioRequest> scenarios,
+            PlanningStrategy strategy, long budgetMs) {
+        checkBudget(strategy, budgetMs);
+        if (scenarios.isEmpty() || scenarios.size() > MAX_SCENARIOS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_SCENARIOS + " scenarios are required.");
+        }
 
-        List<ProductionSuggestionItemResponse> items = new ArrayList<>();
-        BigDecimal grandTotal = BigDecimal.ZERO;
+        GreedyPlan base = catalogProvider.currentPlan();
+        // overrides are checked up front so a bad scenario fails the batch before any planning
+        List<ProductionCatalog> catalogs = scenarios.stream().map(s -> applyOverrides(base.catalog, s)).toList();
 
-        for (Product p : products) {
-            List<ProductMaterial> bom = productMaterialRepository.findByProductId(p.getId());
+        return IntStream.range(0, catalogs.size()).parallel()
+                .mapToObj(i -> evaluate(base, catalogs.get(i), strategy, budgetMs))
+                .toList();
+    }
 
-            if (bom.isEmpty())
-                continue;
+    private ProductionSuggestionResponse evaluate(GreedyPlan base, ProductionCatalog catalog,
+            PlanningStrategy strategy, long budgetMs) {
+        GreedyPlan greedy = catalog == base.catalog ? base : GreedyPlanner.replan(base, catalog);
+        ProductionPlan plan = ProductionPlan.greedy(greedy);
+        if (strategy == PlanningStrategy.OPTIMAL) {
+            OptimalPlanner.Result result = optimalPlanner.plan(catalog, greedy.units, budgetMs);
+            plan = new ProductionPlan(catalog, result.units, PlanningStrategy.OPTIMAL, result.upperBound,
+                    result.optimal);
+        }
 
-            Integer maxUnits = calculateMaxUnits(bom, stockByRawMaterialId);
+        List<ProductionSuggestionItemResponse> items = new ArrayList<>();
+        return toResponse(items, summarize(plan, items::add));
+    }
 
-            if (maxUnits <= 0)
-                continue;
+    /**
+     * Total raw-material requirements of an order and what current stock is
+     * missing, computed from the in-memory catalog with one sparse
+     * vector-matrix product.
+     */
+    public ProductionRequirementsResponse requirements(List<ProductionOrderLineRequest> lines) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one order line is required.");
+        }
 
-            for (ProductMaterial pm : bom) {
-                Long rmId = pm.getRawMaterial().getId();
-                BigDecimal currentStock = stockByRawMaterialId.getOrDefault(rmId, BigDecimal.ZERO);
+        ProductionCatalog catalog = catalogProvider.current();
+        Map<Integer, Long> unitsByPosition = new LinkedHashMap<>();
+        for (ProductionOrderLineRequest line : lines) {
+            Integer p = catalog.productIndexOf(line.productId);
+            if (p == null) {
+                throw new NotFoundException("Product not found: " + line.productId + ".");
+            }
+            unitsByPosition.merge(p, line.quantity, Math::addExact);
+        }
 
-                BigDecimal consumption = pm.getRequiredQuantity().multiply(BigDecimal.valueOf(maxUnits));
-                stockByRawMaterialId.put(rmId, currentStock.subtract(consumption));
+        int[] positions = new int[unitsByPosition.size()];
+        long[] units = new long[positions.length];
+        List<Long> withoutBom = new ArrayList<>();
+        int i = 0;
+        for (Map.Entry<Integer, Long> e : unitsByPosition.entrySet()) {
+            positions[i] = e.getKey();
+            units[i++] = e.getValue();
+            if (!catalog.hasBom(e.getKey())) {
+                withoutBom.add(catalog.productIds[e.getKey()]);
             }
+        }
 
-            ProductionSuggestionItemResponse r = new ProductionSuggestionItemResponse();
-            r.productId = p.getId();
-            r.productCode = p.getCode();
-            r.productName = p.getName();
-            r.unitPrice = p.getPrice();
-            r.producibleQuantity = maxUnits;
-            r.totalValue = p.getPrice().multiply(BigDecimal.valueOf(maxUnits));
-
-            items.add(r);
-            grandTotal = grandTotal.add(r.totalValue);
+        BigDecimal[] required = catalog.requirements(positions, units);
+
+        List<MaterialRequirementResponse> requirements = new ArrayList<>();
+        boolean covered = true;
+        for (int m = 0; m < required.length; m++) {
+            if (required[m] == null) {
+                continue;
+            }
+            MaterialRequirementResponse r = new MaterialRequirementResponse();
+            r.rawMaterialId = catalog.materialIds[m];
+            r.requiredQuantity = required[m];
+            r.stockQuantity = catalog.stock[m];
+            r.shortfall = required[m].subtract(catalog.stock[m]).max(BigDecimal.ZERO);
+            covered &= r.shortfall.signum() == 0;
+            requirements.add(r);
         }
+        requirements.sort(Comparator.comparing(r -> r.rawMaterialId));
 
-        ProductionSuggestionResponse resp = new ProductionSuggestionResponse();
-        resp.items = items;
-        resp.totalValue = grandTotal;
+        ProductionRequirementsResponse resp = new ProductionRequirementsResponse();
+        resp.requirements = requirements;
+        resp.productsWithoutBom = withoutBom;
+        resp.feasible = covered && withoutBom.isEmpty();
         return resp;
     }
 
-    private Integer calculateMaxUnits(List<ProductMaterial> bom, Map<Long, BigDecimal> stockByRawMaterialId) {
-        Integer max = null;
+    static ProductionCatalog applyOverrides(ProductionCatalog base, ProductionScenarioRequest scenario) {
+        ProductionCatalog catalog = base;
 
-        for (ProductMaterial pm : bom) {
-            Long rmId = pm.getRawMaterial().getId();
-            BigDecimal stock = stockByRawMaterialId.getOrDefault(rmId, BigDecimal.ZERO);
-            BigDecimal required = pm.getRequiredQuantity();
+        if (!scenario.priceOverrides.isEmpty()) {
+            Map<Integer, BigDecimal> prices = new HashMap<>();
+            for (ProductionScenarioRequest.PriceOverride o : scenario.priceOverrides) {
+                Integer p = base.productIndexOf(o.productId);
+                if (p == null) {
+                    throw new NotFoundException("Product not found: " + o.productId + ".");
+                }
+                if (prices.put(p, o.price) != null) {
+                    throw new IllegalArgumentException("Product " + o.productId + " is overridden more than once.");
+                }
+            }
+            catalog = catalog.withPrices(prices);
+        }
 
-            if (required == null || required.compareTo(BigDecimal.ZERO) <= 0) {
-                return 0;
+        if (!scenario.stockOverrides.isEmpty()) {
+            Map<Integer, BigDecimal> stock = new HashMap<>();
+            for (ProductionScenarioRequest.StockOverride o : scenario.stockOverrides) {
+                Integer m = base.materialIndexOf(o.rawMaterialId);
+                if (m == null) {
+                    throw new NotFoundException("Raw material not found: " + o.rawMaterialId + ".");
+                }
+                if ((o.stockQuantity == null) == (o.delta == null)) {
+                    throw new IllegalArgumentException("Stock override for raw material " + o.rawMaterialId
+                            + " needs exactly one of stockQuantity or delta.");
+                }
+                // a material without stock has none to add the delta to
+                BigDecimal current = base.stock[m] == null ? BigDecimal.ZERO : base.stock[m];
+                BigDecimal value = o.stockQuantity != null
+                        ? o.stockQuantity
+                        : current.add(o.delta).max(BigDecimal.ZERO);
+                if (stock.put(m, value) != null) {
+                    throw new IllegalArgumentException(
+                            "Raw material " + o.rawMaterialId + " is overridden more than once.");
+                }
             }
+            catalog = catalog.withStock(stock);
+        }
 
-            BigDecimal possible = stock.divide(required, 0, RoundingMode.FLOOR);
-            int possibleInt = possible.intValue();
+        return catalog;
+    }
 
-            if (max == null || possibleInt < max) {
-                max = possibleInt;
-            }
+    static void checkBudget(PlanningStrategy strategy, long budgetMs) {
+        if (strategy == PlanningStrategy.OPTIMAL && (budgetMs <= 0 || budgetMs > MAX_BUDGET_MS)) {
+            throw new IllegalArgumentException("budgetMs must be between 1 and " + MAX_BUDGET_MS + ".");
         }
+    }
 
-        return max == null ? 0 : max;
+    /**
+     * Maps the plan to items one at a time, in catalog order, and returns the
+     * totals once every item has been handed to {@code sink}.
+     */
+    public ProductionSuggestionSummaryResponse emit(ProductionPlan plan,
+            Consumer<ProductionSuggestionItemResponse> sink) {
+        int[] items = { 0 };
+        ProductionSuggestionSummaryResponse summary = summarize(plan, item -> {
+            sink.accept(item);
+            items[0]++;
+        });
+        metrics.itemsProduced(items[0]);
+        return summary;
+    }
+
+    private static ProductionSuggestionSummaryResponse summarize(ProductionPlan plan,
+            Consumer<ProductionSuggestionItemResponse> sink) {
+        ProductionCatalog catalog = plan.catalog;
+        int[] units = plan.units;
+        BigDecimal grandTotal = BigDecimal.ZERO;
+
+        for (int p = 0; p < units.length; p++) {
+            if (units[p] <= 0)
+                continue;
+
+            ProductionSuggestionItemResponse r = new ProductionSuggestionItemResponse();
+            r.productId = catalog.productIds[p];
+            r.productCode = catalog.productCodes[p];
+            r.productName = catalog.productNames[p];
+            r.unitPrice = catalog.prices[p];
+            r.producibleQuantity = units[p];
+            r.totalValue = catalog.prices[p].multiply(BigDecimal.valueOf(units[p]));
+
+            sink.accept(r);
+            grandTotal = grandTotal.add(r.totalValue);
+        }
+
+        ProductionSuggestionSummaryResponse summary = new ProductionSuggestionSummaryResponse();
+        summary.totalValue = grandTotal;
+        if (plan.strategy == PlanningStrategy.OPTIMAL) {
+            summary.strategy = plan.strategy.name().toLowerCase(Locale.ROOT);
+            summary.optimal = plan.optimal;
+            if (plan.optimal) {
+                summary.upperBound = grandTotal;
+                summary.gap = BigDecimal.ZERO;
+            } else if (!Double.isNaN(plan.upperBound)) {
+                BigDecimal bound = BigDecimal.valueOf(plan.upperBound).setScale(2, RoundingMode.CEILING)
+                        .max(grandTotal);
+                summary.upperBound = bound;
+                summary.gap = bound.subtract(grandTotal);
+            }
+        }
+        return summary;
     }
 }
@@ -0,0 +1,66 @@
+package com.yago.inventory_api.production;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Loads the catalog and runs the planner a number of times before the
+ * application reports ready. Runners finish before Spring Boot switches the
+ * readiness state to ACCEPTING_TRAFFIC, so a readiness probe keeps traffic
+ * away until the first snapshot exists and the hot paths have been
+ * compiled.
+ */
+@Component
+public class ProductionWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionWarmup.class);
+
+    private final ProductionCatalogProvider catalogProvider;
+    private final ProductionService productionService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    public ProductionWarmup(ProductionCatalogProvider catalogProvider, ProductionService productionService,
+            ObjectMapper objectMapper,
+            @Value("${production.warmup.enabled:true}") boolean enabled,
+            @Value("${production.warmup.iterations:50}") int iterations,
+            @Value("${production.warmup.max-duration:5s}") Duration maxDuration) {
+        this.catalogProvider = catalogProvider;
+        this.productionService = productionService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws JsonProcessingException {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        ProductionCatalog catalog = catalogProvider.current();
+
+        int done = 0;
+        while (done < iterations && System.nanoTime() < deadline) {
+            GreedyPlanner.planFull(catalog);
+            objectMapper.writeValueAsBytes(productionService.suggest());
+            done++;
+        }
+
+        log.info("Production warm-up: {} products, {} iterations in {} ms", catalog.productCount(), done,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,166 @@
+package com.yago.inventory_api.production;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yago.inventory_api.common.etag.CatalogVersion;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
+import com.yago.inventory_api.common.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes catalog and suggestion changes to server-sent event subscribers.
+ * <p>
+ * Catalog changes are debounced: the first one schedules a single
+ * recomputation {@code debounce} later and the ones arriving meanwhile ride
+ * along. The suggestion is computed and serialized once and the same
+ * payload goes to every client; it is only sent when it actually changed.
+ * Each push is preceded by a {@code catalog} event carrying the current
+ * catalog ETag, so clients can revalidate their lists with a conditional GET.
+ */
+@Service
+public class SuggestionStreamService {
+
+    static final String CATALOG_EVENT = "catalog";
+    static final String SUGGESTION_EVENT = "suggestion";
+
+    private final ProductionService productionService;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final Duration debounce;
+    private final Duration timeout;
+    private final int maxClients;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "suggestion-stream");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private volatile String lastSuggestion;
+
+    public SuggestionStreamService(ProductionService productionService, CatalogVersion catalogVersion,
+            ObjectMapper objectMapper,
+            @Value("${production.stream.debounce:250ms}") Duration debounce,
+            @Value("${production.stream.timeout:30m}") Duration timeout,
+            @Value("${production.stream.heartbeat:30s}") Duration heartbeat,
+            @Value("${production.stream.max-clients:1000}") int maxClients) {
+        this.productionService = productionService;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.debounce = debounce;
+        this.timeout = timeout;
+        this.maxClients = maxClients;
+
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        if (emitters.size() >= maxClients) {
+            throw new TooManyRequestsException("Too many stream subscribers; try again later.");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        // the first snapshot comes from the scheduler too, so it is ordered with the pushes
+        scheduler.execute(() -> {
+            String suggestion = lastSuggestion;
+            if (suggestion == null) {
+                refresh();
+            } else {
+                send(emitter, CATALOG_EVENT, etagPayload());
+                send(emitter, SUGGESTION_EVENT, suggestion);
+            }
+        });
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (emitters.isEmpty()) {
+            // nobody is listening: forget the last payload instead of recomputing it
+            lastSuggestion = null;
+            return;
+        }
+        if (refreshScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::refresh, debounce.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        // cleared before planning, so a change arriving while this runs schedules another pass
+        refreshScheduled.set(false);
+        if (emitters.isEmpty()) {
+            lastSuggestion = null;
+            return;
+        }
+
+        String catalog = etagPayload();
+        String suggestion = toJson(productionService.suggest());
+        boolean changed = !suggestion.equals(lastSuggestion);
+        lastSuggestion = suggestion;
+
+        for (SseEmitter emitter : emitters) {
+            send(emitter, CATALOG_EVENT, catalog);
+            if (changed) {
+                send(emitter, SUGGESTION_EVENT, suggestion);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, String name, String json) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // the client went away; the container completes the emitter
+            emitters.remove(emitter);
+        }
+    }
+
+    private String etagPayload() {
+        return toJson(Map.of("etag", catalogVersion.etag()));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+}
@@ -0,0 +1,10 @@
+package com.yago.inventory_api.production.dto;
+
+import java.math.BigDecimal;
+
+public class MaterialRequirementResponse {
+    public Long rawMaterialId;
+    public BigDecimal requiredQuantity;
+    public BigDecimal stockQuantity;
+    public BigDecimal shortfall;
+}
@@ -0,0 +1,20 @@
+package com.yago.inventory_api.production.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+public class PlanJobResponse {
+    public String id;
+    public String status;
+    public Instant createdAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Instant finishedAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public ProductionSuggestionResponse result;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String error;
+}
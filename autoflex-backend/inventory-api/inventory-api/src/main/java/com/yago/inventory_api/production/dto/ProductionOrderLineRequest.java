@@ -0,0 +1,17 @@
+package com.yago.inventory_api.production.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public class ProductionOrderLineRequest {
+
+    @NotNull
+    public Long productId;
+
+    @NotNull
+    @Positive
+    // lines for the same product are summed in a long
+    @Max(1_000_000_000)
+    public Long quantity;
+}
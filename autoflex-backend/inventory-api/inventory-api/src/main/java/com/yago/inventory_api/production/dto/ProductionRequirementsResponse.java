@@ -0,0 +1,11 @@
+package com.yago.inventory_api.production.dto;
+
+import java.util.List;
+
+public class ProductionRequirementsResponse {
+    /** Whether current stock covers the whole order. */
+    public boolean feasible;
+    public List<MaterialRequirementResponse> requirements;
+    /** Ordered products that have no (resolvable) BOM and so cannot be built. */
+    public List<Long> productsWithoutBom;
+}
@@ -0,0 +1,44 @@
+package com.yago.inventory_api.production.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One what-if question: the current catalog with some stock and/or prices
+ * replaced. A stock override gives either the new {@code stockQuantity} or
+ * a {@code delta} added to the current stock.
+ */
+public class ProductionScenarioRequest {
+
+    @Valid
+    public List<StockOverride> stockOverrides = new ArrayList<>();
+
+    @Valid
+    public List<PriceOverride> priceOverrides = new ArrayList<>();
+
+    public static class StockOverride {
+
+        @NotNull
+        public Long rawMaterialId;
+
+        @PositiveOrZero
+        public BigDecimal stockQuantity;
+
+        public BigDecimal delta;
+    }
+
+    public static class PriceOverride {
+
+        @NotNull
+        public Long productId;
+
+        @NotNull
+        @PositiveOrZero
+        public BigDecimal price;
+    }
+}
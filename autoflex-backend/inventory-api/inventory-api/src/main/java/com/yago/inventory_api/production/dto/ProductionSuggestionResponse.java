@@ -1,9 +1,23 @@
 package com.yago.inventory_api.production.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 import java.util.List;
 
 public class ProductionSuggestionResponse {
     public List<ProductionSuggestionItemResponse> items;
     public BigDecimal totalValue;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String strategy;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public BigDecimal upperBound;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public BigDecimal gap;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Boolean optimal;
 }
@@ -0,0 +1,21 @@
+package com.yago.inventory_api.production.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+public class ProductionSuggestionSummaryResponse {
+    public BigDecimal totalValue;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String strategy;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public BigDecimal upperBound;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public BigDecimal gap;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Boolean optimal;
+}
@@ -3,13 +3,30 @@ package com.yago.inventory_api.rawmaterial;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
 import java.math.BigDecimal;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "raw-materials")
 @Table(name = "raw_materials")
 
 public class RawMaterial {
 
+    // snapshot plus the movements not yet folded into it; see StockLedger
+    static final String CURRENT_STOCK = """
+            (stock_quantity + coalesce((select sum(m.quantity) from stock_movements m
+                where m.raw_material_id = id and m.id > stock_movement_id), 0))""";
+
+    // row version plus every stock movement except adjustments, which come
+    // from updates and imports that already bump the row version
+    static final String REVISION = """
+            (version + stock_movement_count + (select count(*) from stock_movements m
+                where m.raw_material_id = id and m.id > stock_movement_id and m.kind <> 'ADJUSTMENT'))""";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -22,10 +39,22 @@ public class RawMaterial {
     @NotBlank
     private String name;
 
-    @Column(name = "stock_quantity", nullable = false, precision = 18, scale = 3)
+    // written on insert only; afterwards stock changes are movements
+    @Column(name = "stock_quantity", nullable = false, precision = 18, scale = 3, updatable = false)
     @NotNull
+    private BigDecimal stockSnapshot;
+
+    @Formula(CURRENT_STOCK)
     private BigDecimal stockQuantity;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    @Formula(REVISION)
+    private Long revision;
+
     public Long getId() {
         return id;
     }
@@ -50,11 +79,31 @@ public class RawMaterial {
         this.name = name;
     }
 
+    /** Stock as of the last compaction; indexed for the {@code stockSnapshot} sort. */
+    public BigDecimal getStockSnapshot() {
+        return stockSnapshot;
+    }
+
     public BigDecimal getStockQuantity() {
         return stockQuantity;
     }
 
+    /** Initial stock of a new material; existing ones change through {@link StockLedger}. */
     public void setStockQuantity(BigDecimal stockQuantity) {
+        this.stockSnapshot = stockQuantity;
         this.stockQuantity = stockQuantity;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /** The version exposed by the API: bumped by every update and every stock movement. */
+    public Long getRevision() {
+        return revision;
+    }
 }
@@ -3,10 +3,20 @@ package com.yago.inventory_api.rawmaterial;
 import com.yago.inventory_api.rawmaterial.dto.RawMaterialCreateRequest;
 import com.yago.inventory_api.rawmaterial.dto.RawMaterialResponse;
 import com.yago.inventory_api.rawmaterial.dto.RawMaterialUpdateRequest;
+import com.yago.inventory_api.rawmaterial.dto.StockConsumptionRequest;
+import com.yago.inventory_api.rawmaterial.dto.StockMovementResponse;
+import com.yago.inventory_api.rawmaterial.dto.StockReceiptRequest;
+import com.yago.inventory_api.common.pagination.CursorPage;
+import com.yago.inventory_api.common.importing.ImportResultResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -25,9 +35,41 @@ public class RawMaterialController {
         return service.create(req);
     }
 
+    @PostMapping(value = "/import", consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE })
+    public ImportResultResponse importRawMaterials(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        return service.importRawMaterials(body, contentType);
+    }
+
+    @PostMapping("/consume")
+    public List<RawMaterialResponse> consume(@Valid @RequestBody List<@Valid StockConsumptionRequest> lines) {
+        return service.consume(lines);
+    }
+
+    @PostMapping("/receive")
+    public List<RawMaterialResponse> receive(@Valid @RequestBody List<@Valid StockReceiptRequest> lines) {
+        return service.receive(lines);
+    }
+
     @GetMapping
-    public List<RawMaterialResponse> findAll() {
-        return service.findAll();
+    public ResponseEntity<List<RawMaterialResponse>> findAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String codePrefix,
+            @RequestParam(required = false) String namePrefix) {
+        if (limit == null && cursor == null && sort == null && direction == null && codePrefix == null
+                && namePrefix == null) {
+            return ResponseEntity.ok(service.findAll());
+        }
+
+        CursorPage<RawMaterialResponse> page = service.findPage(limit, cursor, sort, direction, codePrefix, namePrefix);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor);
+        }
+        return response.body(page.items);
     }
 
     @GetMapping("/{id}")
@@ -35,6 +77,12 @@ public class RawMaterialController {
         return service.findById(id);
     }
 
+    @GetMapping("/{id}/movements")
+    public List<StockMovementResponse> findMovements(@PathVariable Long id,
+            @RequestParam(required = false) Integer limit) {
+        return service.findMovements(id, limit);
+    }
+
     @PutMapping("/{id}")
     public RawMaterialResponse update(@PathVariable Long id, @Valid @RequestBody RawMaterialUpdateRequest req) {
         return service.update(id, req);
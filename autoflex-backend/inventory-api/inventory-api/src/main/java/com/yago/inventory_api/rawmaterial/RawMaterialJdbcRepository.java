@@ -0,0 +1,21 @@
+package com.yago.inventory_api.rawmaterial;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+@Repository
+public class RawMaterialJdbcRepository {
+
+    private final JdbcTemplate jdbc;
+
+    public RawMaterialJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    Set<Long> findExistingIds(Collection<Long> ids) {
+        return new HashSet<>(jdbc.queryForList("select id from raw_materials where id = any(?)", Long.class,
+                (Object) ids.toArray(new Long[0])));
+    }
+}
@@ -1,10 +1,31 @@
 package com.yago.inventory_api.rawmaterial;
 
+import com.yago.inventory_api.rawmaterial.dto.RawMaterialResponse;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
 import java.util.Optional;
 
-public interface RawMaterialRepository extends JpaRepository<RawMaterial, Long> {
+public interface RawMaterialRepository extends JpaRepository<RawMaterial, Long>, JpaSpecificationExecutor<RawMaterial> {
     Optional<RawMaterial> findByCode(String code);
 
-    boolean existsByCode(String code);
-}
\ No newline at end of file
+    @Modifying
+    @Query("delete from RawMaterial rm where rm.id = :id")
+    int deleteByIdReturningCount(Long id);
+
+    @Query("""
+            select new com.yago.inventory_api.rawmaterial.dto.RawMaterialResponse(
+                rm.id, rm.code, rm.name, rm.stockQuantity, rm.revision)
+            from RawMaterial rm
+            order by rm.id
+            """)
+    List<RawMaterialResponse> findAllResponses();
+
+    default List<RawMaterial> findPage(Specification<RawMaterial> filter, Sort sort, int limit) {
+        return findBy(filter, q -> q.sortBy(sort).limit(limit).all());
+    }
+}
@@ -3,66 +3,223 @@ package com.yago.inventory_api.rawmaterial;
 import com.yago.inventory_api.rawmaterial.dto.RawMaterialCreateRequest;
 import com.yago.inventory_api.rawmaterial.dto.RawMaterialResponse;
 import com.yago.inventory_api.rawmaterial.dto.RawMaterialUpdateRequest;
+import com.yago.inventory_api.rawmaterial.dto.StockConsumptionRequest;
+import com.yago.inventory_api.rawmaterial.dto.StockMovementResponse;
+import com.yago.inventory_api.rawmaterial.dto.StockReceiptRequest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.yago.inventory_api.common.cache.EntityCacheEvictor;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
+import com.yago.inventory_api.common.importing.BulkImporter;
+import com.yago.inventory_api.common.importing.ImportResultResponse;
+import com.yago.inventory_api.common.pagination.CursorPage;
+import com.yago.inventory_api.common.pagination.Keyset;
+import com.yago.inventory_api.common.pagination.KeysetField;
 import com.yago.inventory_api.common.exception.ConflictException;
+import com.yago.inventory_api.common.exception.UniqueViolation;
 import com.yago.inventory_api.common.exception.NotFoundException;
 
-import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.*;
 
 @Service
 public class RawMaterialService {
 
-    private final RawMaterialRepository repository;
+    private static final int DEFAULT_MOVEMENT_LIMIT = 50;
+
+    private static final Map<String, KeysetField<RawMaterial>> SORT_FIELDS = Map.of(
+            "id", new KeysetField<>("id", Long::valueOf, RawMaterial::getId),
+            "code", new KeysetField<>("code", s -> s, RawMaterial::getCode),
+            "name", new KeysetField<>("name", s -> s, RawMaterial::getName),
+            // the indexed snapshot, not the current stock, which is a per-row sum over the ledger
+            "stockSnapshot", new KeysetField<>("stockSnapshot", BigDecimal::new, RawMaterial::getStockSnapshot));
 
-    public RawMaterialService(RawMaterialRepository repository) {
+    private final RawMaterialRepository repository;
+    private final RawMaterialJdbcRepository jdbcRepository;
+    private final StockLedger stockLedger;
+    private final ApplicationEventPublisher events;
+    private final BulkImporter importer;
+    private final EntityCacheEvictor cacheEvictor;
+
+    public RawMaterialService(RawMaterialRepository repository, RawMaterialJdbcRepository jdbcRepository,
+            StockLedger stockLedger, ApplicationEventPublisher events, BulkImporter importer,
+            EntityCacheEvictor cacheEvictor) {
         this.repository = repository;
+        this.jdbcRepository = jdbcRepository;
+        this.stockLedger = stockLedger;
+        this.events = events;
+        this.importer = importer;
+        this.cacheEvictor = cacheEvictor;
     }
 
     @Transactional
     public RawMaterialResponse create(RawMaterialCreateRequest req) {
-        if (repository.existsByCode(req.code)) {
-            throw new ConflictException("Raw material code already exists");
-        }
-
         RawMaterial rm = new RawMaterial();
         rm.setCode(req.code);
         rm.setName(req.name);
         rm.setStockQuantity(req.stockQuantity);
 
-        RawMaterial saved = repository.save(rm);
-        return toResponse(saved);
+        RawMaterial saved;
+        try {
+            saved = repository.saveAndFlush(rm);
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueViolation.isCause(e)) {
+                throw new ConflictException("Raw material code already exists");
+            }
+            throw e;
+        }
+        events.publishEvent(CatalogChangedEvent.rawMaterial(saved.getId()));
+        RawMaterialResponse created = toResponse(saved);
+        // formulas are not read back after the insert; a new material has no movements yet
+        created.version = saved.getVersion();
+        return created;
+    }
+
+    public ImportResultResponse importRawMaterials(InputStream in, MediaType contentType) throws IOException {
+        ImportResultResponse result = importer.run(in, contentType, stockLedger::importChunk,
+                RawMaterialService::toImportRow);
+        if (result.upserted > 0) {
+            cacheEvictor.evictAll(RawMaterial.class);
+            // no single id: the planner reloads the whole catalog
+            events.publishEvent(CatalogChangedEvent.rawMaterial(null));
+        }
+        return result;
     }
 
+    @Transactional(readOnly = true)
     public List<RawMaterialResponse> findAll() {
-        return repository.findAll().stream().map(this::toResponse).toList();
+        return repository.findAllResponses();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<RawMaterialResponse> findPage(Integer limit, String cursor, String sort, String direction,
+            String codePrefix, String namePrefix) {
+        Keyset<RawMaterial> keyset = Keyset.of(SORT_FIELDS, sort, direction, limit, RawMaterial::getId);
+
+        Specification<RawMaterial> filter = Specification.allOf(keyset.after(cursor),
+                Keyset.startsWith("code", codePrefix), Keyset.startsWith("name", namePrefix));
+
+        return keyset.page(repository.findPage(filter, keyset.sort(), keyset.fetchSize()), this::toResponse);
+    }
+
+    @Transactional(readOnly = true)
     public RawMaterialResponse findById(Long id) {
         RawMaterial rm = repository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Raw material not found."));
         return toResponse(rm);
     }
 
+    /**
+     * Renames a material and sets its stock. The stock is not overwritten:
+     * the difference to the current stock goes into the ledger as an
+     * adjustment.
+     */
     @Transactional
     public RawMaterialResponse update(Long id, RawMaterialUpdateRequest req) {
-        RawMaterial rm = repository.findById(id)
+        RawMaterialResponse current = stockLedger.lockForUpdate(id)
                 .orElseThrow(() -> new NotFoundException("Raw material not found."));
 
-        rm.setName(req.name);
-        rm.setStockQuantity(req.stockQuantity);
+        if (req.version != null && !req.version.equals(current.version)) {
+            throw new ConflictException("Raw material was modified by another request.");
+        }
 
-        RawMaterial saved = repository.save(rm);
-        return toResponse(saved);
+        RawMaterialResponse updated = stockLedger.update(current, req.name, req.stockQuantity);
+        cacheEvictor.evict(RawMaterial.class, List.of(id));
+        events.publishEvent(CatalogChangedEvent.rawMaterial(id));
+        return updated;
+    }
+
+    /**
+     * Consumes stock for several materials at once. Either every line is
+     * applied or none is: when a material is missing or short the
+     * transaction rolls back.
+     */
+    @Transactional
+    public List<RawMaterialResponse> consume(List<StockConsumptionRequest> lines) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one consumption line is required.");
+        }
+
+        Map<Long, BigDecimal> quantityById = new TreeMap<>();
+        for (StockConsumptionRequest line : lines) {
+            quantityById.merge(line.rawMaterialId, line.quantity, BigDecimal::add);
+        }
+
+        List<RawMaterialResponse> consumed = stockLedger.consume(quantityById);
+        if (consumed.size() < quantityById.size()) {
+            Set<Long> existing = jdbcRepository.findExistingIds(quantityById.keySet());
+            List<Long> missing = quantityById.keySet().stream().filter(id -> !existing.contains(id)).toList();
+            if (!missing.isEmpty()) {
+                throw new NotFoundException("Raw material not found: " + missing + ".");
+            }
+
+            Set<Long> applied = new HashSet<>();
+            consumed.forEach(r -> applied.add(r.id));
+            List<Long> shortIds = quantityById.keySet().stream().filter(id -> !applied.contains(id)).toList();
+            throw new ConflictException("Insufficient stock for raw materials: " + shortIds + ".");
+        }
+
+        cacheEvictor.evict(RawMaterial.class, quantityById.keySet());
+        consumed.forEach(r -> events.publishEvent(CatalogChangedEvent.rawMaterial(r.id)));
+        consumed.sort(Comparator.comparing(r -> r.id));
+        return consumed;
+    }
+
+    /** Adds stock for several materials at once; all lines or none, like {@link #consume}. */
+    @Transactional
+    public List<RawMaterialResponse> receive(List<StockReceiptRequest> lines) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one receipt line is required.");
+        }
+
+        Map<Long, BigDecimal> quantityById = new TreeMap<>();
+        for (StockReceiptRequest line : lines) {
+            quantityById.merge(line.rawMaterialId, line.quantity, BigDecimal::add);
+        }
+
+        List<RawMaterialResponse> received = stockLedger.receive(quantityById);
+        if (received.size() < quantityById.size()) {
+            Set<Long> applied = new HashSet<>();
+            received.forEach(r -> applied.add(r.id));
+            List<Long> missing = quantityById.keySet().stream().filter(id -> !applied.contains(id)).toList();
+            throw new NotFoundException("Raw material not found: " + missing + ".");
+        }
+
+        cacheEvictor.evict(RawMaterial.class, quantityById.keySet());
+        received.forEach(r -> events.publishEvent(CatalogChangedEvent.rawMaterial(r.id)));
+        received.sort(Comparator.comparing(r -> r.id));
+        return received;
+    }
+
+    /** Stock movements of a material, newest first. */
+    @Transactional(readOnly = true)
+    public List<StockMovementResponse> findMovements(Long id, Integer limit) {
+        int size = limit == null ? DEFAULT_MOVEMENT_LIMIT : limit;
+        if (size < 1 || size > Keyset.MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + Keyset.MAX_LIMIT + ".");
+        }
+
+        List<StockMovementResponse> movements = stockLedger.findMovements(id, size);
+        if (movements.isEmpty() && jdbcRepository.findExistingIds(List.of(id)).isEmpty()) {
+            throw new NotFoundException("Raw material not found.");
+        }
+        return movements;
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!repository.existsById(id)) {
+        if (repository.deleteByIdReturningCount(id) == 0) {
             throw new NotFoundException("Raw material not found.");
         }
-        repository.deleteById(id);
+        events.publishEvent(CatalogChangedEvent.rawMaterial(id));
     }
 
     private RawMaterialResponse toResponse(RawMaterial rm) {
@@ -71,6 +228,17 @@ public class RawMaterialService {
         r.code = rm.getCode();
         r.name = rm.getName();
         r.stockQuantity = rm.getStockQuantity();
+        r.version = rm.getRevision();
         return r;
     }
+
+    private static Object[] toImportRow(Map<String, String> record) {
+        String code = BulkImporter.requiredText(record, "code");
+        String name = BulkImporter.requiredText(record, "name");
+        BigDecimal stockQuantity = BulkImporter.requiredDecimal(record, "stockQuantity", 18, 3);
+        if (stockQuantity.signum() < 0) {
+            throw new IllegalArgumentException("stockQuantity must be greater than or equal to 0.");
+        }
+        return new Object[] { code, name, stockQuantity };
+    }
 }
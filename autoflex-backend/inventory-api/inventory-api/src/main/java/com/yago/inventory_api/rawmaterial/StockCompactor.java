@@ -0,0 +1,88 @@
+package com.yago.inventory_api.rawmaterial;
+
+import com.yago.inventory_api.common.cache.EntityCacheEvictor;
+import com.yago.inventory_api.common.etag.CatalogVersion;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls the stock ledger into new snapshots every {@code interval}, so a
+ * stock read only ever sums the movements of the last interval. Each batch
+ * of materials is compacted in its own short transaction.
+ */
+@Component
+public class StockCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(StockCompactor.class);
+
+    private final StockLedger ledger;
+    private final TransactionTemplate transactions;
+    private final EntityCacheEvictor cacheEvictor;
+    private final CatalogVersion catalogVersion;
+    private final int batchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stock-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public StockCompactor(StockLedger ledger, TransactionTemplate transactions, EntityCacheEvictor cacheEvictor,
+            CatalogVersion catalogVersion, @Value("${stock.compaction.interval:10s}") Duration interval,
+            @Value("${stock.compaction.batch-size:500}") int batchSize) {
+        this.ledger = ledger;
+        this.transactions = transactions;
+        this.cacheEvictor = cacheEvictor;
+        this.catalogVersion = catalogVersion;
+        this.batchSize = batchSize;
+
+        scheduler.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** @return the number of materials whose movements were folded into their snapshot */
+    public int compact() {
+        int total = 0;
+        int compacted;
+        do {
+            compacted = transactions.execute(status -> {
+                List<Long> ids = ledger.compact(batchSize);
+                // cached rows would carry the old snapshot into stock-sorted pages and their cursors
+                cacheEvictor.evict(RawMaterial.class, ids);
+                if (!ids.isEmpty()) {
+                    // stock is unchanged, but stockSnapshot pages are reordered under their ETags
+                    catalogVersion.changed();
+                }
+                return ids.size();
+            });
+            total += compacted;
+        } while (compacted == batchSize);
+        return total;
+    }
+
+    private void run() {
+        try {
+            int compacted = compact();
+            if (compacted > 0) {
+                log.debug("Stock ledger compacted for {} raw materials", compacted);
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule; the next pass retries
+            log.warn("Stock ledger compaction failed", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,210 @@
+package com.yago.inventory_api.rawmaterial;
+
+import com.yago.inventory_api.rawmaterial.dto.RawMaterialResponse;
+import com.yago.inventory_api.rawmaterial.dto.StockMovementResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Append-only stock ledger. Stock changes are inserted into
+ * {@code stock_movements}; the current stock of a material is the snapshot
+ * on its {@code raw_materials} row plus the movements after
+ * {@code stock_movement_id}, which {@link StockCompactor} periodically folds
+ * into the snapshot, so a read only sums the movements since then.
+ * <p>
+ * Every writer locks the material row before appending, and holds the lock
+ * until commit: receipts in {@code key share} mode, which never blocks
+ * another receipt, and writers that must read the balance first
+ * (consumptions, updates, imports) in {@code no key update} mode, which
+ * serializes them per material. The compactor takes {@code update} locks,
+ * skipping busy rows, so no movement can commit behind the snapshot.
+ */
+@Repository
+public class StockLedger {
+
+    public enum Kind {
+        RECEIPT, CONSUMPTION, ADJUSTMENT
+    }
+
+    // the same expressions as RawMaterial.CURRENT_STOCK and RawMaterial.REVISION
+    private static final String PENDING = """
+            cross join lateral (
+                select coalesce(sum(m.quantity), 0) as quantity,
+                    count(*) filter (where m.kind <> 'ADJUSTMENT') as movements
+                from stock_movements m
+                where m.raw_material_id = rm.id and m.id > rm.stock_movement_id
+            ) pending
+            """;
+
+    private static final String CURRENT = """
+            select rm.id, rm.code, rm.name, rm.stock_quantity + pending.quantity as stock,
+                rm.version + rm.stock_movement_count + pending.movements as revision
+            from raw_materials rm
+            """ + PENDING;
+
+    private static final String UPSERT_SQL = """
+            insert into raw_materials (code, name, stock_quantity) values (?, ?, ?)
+            on conflict (code) do update set name = excluded.name, version = raw_materials.version + 1""";
+
+    private static final RowMapper<RawMaterialResponse> RESPONSE = (rs, i) -> new RawMaterialResponse(
+            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBigDecimal(4), rs.getLong(5));
+
+    private final JdbcTemplate jdbc;
+
+    public StockLedger(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Appends a consumption for every material that has enough stock.
+     * Materials that are missing or short are simply absent from the result;
+     * the caller decides whether to roll back.
+     */
+    List<RawMaterialResponse> consume(Map<Long, BigDecimal> quantityById) {
+        return append(quantityById, Kind.CONSUMPTION, "no key update", "cur.stock >= req.qty", "-");
+    }
+
+    /** Appends a receipt for every material that exists. */
+    List<RawMaterialResponse> receive(Map<Long, BigDecimal> quantityById) {
+        return append(quantityById, Kind.RECEIPT, "key share", "true", "+");
+    }
+
+    private List<RawMaterialResponse> append(Map<Long, BigDecimal> quantityById, Kind kind, String lockMode,
+            String condition, String sign) {
+        Long[] ids = quantityById.keySet().toArray(new Long[0]);
+        BigDecimal[] quantities = quantityById.values().toArray(new BigDecimal[0]);
+
+        // rows locked in id order so concurrent multi-material writes cannot deadlock;
+        // the balance is read by the next statement, which sees every writer that held the lock before
+        jdbc.queryForList("select id from raw_materials where id = any(?) order by id for " + lockMode,
+                Long.class, (Object) ids);
+
+        return jdbc.query("""
+                with req(id, qty) as (
+                    select * from unnest(?::bigint[], ?::numeric[])
+                ), cur as (
+                    select rm.id, rm.code, rm.name, rm.stock_quantity + pending.quantity as stock,
+                        rm.version + rm.stock_movement_count + pending.movements as revision
+                    from raw_materials rm
+                    join req on req.id = rm.id
+                    %s
+                ), applied as (
+                    select cur.*, req.qty from cur join req on req.id = cur.id where %s
+                ), inserted as (
+                    insert into stock_movements (raw_material_id, kind, quantity)
+                    select id, '%s', %sqty from applied order by id
+                )
+                select id, code, name, stock %s qty, revision + 1 from applied
+                """.formatted(PENDING, condition, kind, sign, sign), RESPONSE, ids, quantities);
+    }
+
+    /** Locks a material for an update and reads its current state. */
+    Optional<RawMaterialResponse> lockForUpdate(long id) {
+        if (jdbc.queryForList("select id from raw_materials where id = ? for no key update", Long.class, id)
+                .isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(jdbc.queryForObject(CURRENT + "where rm.id = ?", RESPONSE, id));
+    }
+
+    /**
+     * Renames a material locked by {@link #lockForUpdate} and records the
+     * difference to the requested stock as an adjustment.
+     */
+    RawMaterialResponse update(RawMaterialResponse current, String name, BigDecimal stockQuantity) {
+        BigDecimal delta = stockQuantity.subtract(current.stockQuantity);
+        if (name.equals(current.name) && delta.signum() == 0) {
+            return current;
+        }
+
+        jdbc.update("update raw_materials set name = ?, version = version + 1 where id = ?", name, current.id);
+        if (delta.signum() != 0) {
+            jdbc.update("insert into stock_movements (raw_material_id, kind, quantity) values (?, ?, ?)",
+                    current.id, Kind.ADJUSTMENT.name(), delta);
+        }
+        return new RawMaterialResponse(current.id, current.code, name, stockQuantity, current.version + 1);
+    }
+
+    /**
+     * Import chunk of {@code code, name, stockQuantity} rows. New materials
+     * get the stock as their snapshot; existing ones are renamed by the
+     * upsert, which also locks them, and get an adjustment to the imported
+     * stock.
+     */
+    void importChunk(List<Object[]> rows) {
+        jdbc.batchUpdate(UPSERT_SQL, rows);
+
+        String[] codes = new String[rows.size()];
+        BigDecimal[] quantities = new BigDecimal[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            codes[i] = (String) rows.get(i)[0];
+            quantities[i] = (BigDecimal) rows.get(i)[2];
+        }
+
+        jdbc.update("""
+                insert into stock_movements (raw_material_id, kind, quantity)
+                select rm.id, 'ADJUSTMENT', req.qty - (rm.stock_quantity + pending.quantity)
+                from unnest(?::text[], ?::numeric[]) req(code, qty)
+                join raw_materials rm on rm.code = req.code
+                """ + PENDING + """
+                where req.qty <> rm.stock_quantity + pending.quantity
+                order by rm.id
+                """, codes, quantities);
+    }
+
+    List<StockMovementResponse> findMovements(long rawMaterialId, int limit) {
+        return jdbc.query("""
+                select id, kind, quantity, created_at from stock_movements
+                where raw_material_id = ?
+                order by id desc
+                limit ?
+                """, (rs, i) -> new StockMovementResponse(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3),
+                rs.getObject(4, OffsetDateTime.class)), rawMaterialId, limit);
+    }
+
+    /**
+     * Folds the pending movements of up to {@code limit} materials into their
+     * snapshots. Must run in a transaction; materials with a writer in flight
+     * are skipped and picked up by a later pass. Current stock and version
+     * are unchanged, but the snapshot, which stock sorts use, moves.
+     *
+     * @return the ids of the materials compacted
+     */
+    List<Long> compact(int limit) {
+        List<Long> ids = jdbc.queryForList("""
+                select rm.id from raw_materials rm
+                where exists (
+                    select 1 from stock_movements m
+                    where m.raw_material_id = rm.id and m.id > rm.stock_movement_id
+                )
+                order by rm.id
+                limit ?
+                for update skip locked
+                """, Long.class, limit);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        return jdbc.queryForList("""
+                update raw_materials rm
+                set stock_quantity = rm.stock_quantity + p.quantity,
+                    stock_movement_id = p.last_id,
+                    stock_movement_count = rm.stock_movement_count + p.movements
+                from (
+                    select m.raw_material_id, sum(m.quantity) as quantity, max(m.id) as last_id,
+                        count(*) filter (where m.kind <> 'ADJUSTMENT') as movements
+                    from raw_materials r
+                    join stock_movements m on m.raw_material_id = r.id and m.id > r.stock_movement_id
+                    where r.id = any(?)
+                    group by m.raw_material_id
+                ) p
+                where rm.id = p.raw_material_id
+                returning rm.id
+                """, Long.class, (Object) ids.toArray(new Long[0]));
+    }
+}
@@ -1,5 +1,6 @@
 package com.yago.inventory_api.rawmaterial.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -15,5 +16,6 @@ public class RawMaterialCreateRequest {
 
     @NotNull
     @PositiveOrZero
+    @Digits(integer = 15, fraction = 3)
     public BigDecimal stockQuantity;
 }
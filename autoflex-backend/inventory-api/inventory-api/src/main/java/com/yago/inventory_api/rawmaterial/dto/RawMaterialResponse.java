@@ -7,4 +7,16 @@ public class RawMaterialResponse {
     public String code;
     public String name;
     public BigDecimal stockQuantity;
+    public Long version;
+
+    public RawMaterialResponse() {
+    }
+
+    public RawMaterialResponse(Long id, String code, String name, BigDecimal stockQuantity, Long version) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.stockQuantity = stockQuantity;
+        this.version = version;
+    }
 }
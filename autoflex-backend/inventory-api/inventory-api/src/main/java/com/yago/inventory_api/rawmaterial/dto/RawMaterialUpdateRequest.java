@@ -1,5 +1,6 @@
 package com.yago.inventory_api.rawmaterial.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -12,5 +13,9 @@ public class RawMaterialUpdateRequest {
 
     @NotNull
     @PositiveOrZero
+    @Digits(integer = 15, fraction = 3)
     public BigDecimal stockQuantity;
+
+    // optional: when present the update is rejected if the row changed since it was read
+    public Long version;
 }
@@ -0,0 +1,21 @@
+package com.yago.inventory_api.rawmaterial.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public class StockMovementResponse {
+    public Long id;
+    public String kind;
+    public BigDecimal quantity;
+    public OffsetDateTime createdAt;
+
+    public StockMovementResponse() {
+    }
+
+    public StockMovementResponse(Long id, String kind, BigDecimal quantity, OffsetDateTime createdAt) {
+        this.id = id;
+        this.kind = kind;
+        this.quantity = quantity;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,17 @@
+package com.yago.inventory_api.rawmaterial.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.math.BigDecimal;
+
+public class StockReceiptRequest {
+
+    @NotNull
+    public Long rawMaterialId;
+
+    @NotNull
+    @Positive
+    @Digits(integer = 15, fraction = 3)
+    public BigDecimal quantity;
+}
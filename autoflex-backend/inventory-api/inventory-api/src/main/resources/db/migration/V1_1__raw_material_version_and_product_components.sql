@@ -0,0 +1,11 @@
+-- Added by ddl-auto=update after the first release, so a database baselined
+-- at version 0 may or may not have them yet.
+alter table raw_materials add column if not exists version bigint default 0 not null;
+
+create table if not exists product_components (
+    id bigint generated by default as identity primary key,
+    product_id bigint not null references products,
+    component_product_id bigint not null references products,
+    required_quantity numeric(18,3) not null,
+    unique (product_id, component_product_id)
+);
@@ -0,0 +1,25 @@
+-- Schema of the first release, as generated by hibernate.ddl-auto=update.
+-- Databases created that way are baselined at version 0, so this only adds
+-- the tables they lack; later columns and tables come in V1_1.
+
+create table if not exists products (
+    id bigint generated by default as identity primary key,
+    code varchar(255) not null unique,
+    name varchar(255) not null,
+    price numeric(12,2) not null
+);
+
+create table if not exists raw_materials (
+    id bigint generated by default as identity primary key,
+    code varchar(255) not null unique,
+    name varchar(255) not null,
+    stock_quantity numeric(18,3) not null
+);
+
+create table if not exists product_materials (
+    id bigint generated by default as identity primary key,
+    product_id bigint not null references products,
+    raw_material_id bigint not null references raw_materials,
+    required_quantity numeric(18,3) not null,
+    unique (product_id, raw_material_id)
+);
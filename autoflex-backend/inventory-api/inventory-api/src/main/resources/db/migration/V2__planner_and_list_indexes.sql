@@ -0,0 +1,18 @@
+-- Planner load (order by price desc) and keyset pages sorted by price.
+create index if not exists products_price_id_idx on products (price, id);
+-- Keyset pages sorted by name; code pages use the unique index on code.
+create index if not exists products_name_id_idx on products (name, id);
+-- Prefix filters (like 'x%') cannot use the default-collation indexes.
+create index if not exists products_code_pattern_idx on products (code varchar_pattern_ops);
+create index if not exists products_name_pattern_idx on products (name varchar_pattern_ops);
+
+create index if not exists raw_materials_name_id_idx on raw_materials (name, id);
+create index if not exists raw_materials_stock_id_idx on raw_materials (stock_quantity, id);
+create index if not exists raw_materials_code_pattern_idx on raw_materials (code varchar_pattern_ops);
+create index if not exists raw_materials_name_pattern_idx on raw_materials (name varchar_pattern_ops);
+
+-- Reverse BOM: which products use a raw material or a sub-assembly. These
+-- also back the foreign keys when a raw material or product is deleted.
+-- Lookups by product_id use the leading column of the unique constraints.
+create index if not exists product_materials_raw_material_idx on product_materials (raw_material_id);
+create index if not exists product_components_component_idx on product_components (component_product_id);
@@ -0,0 +1,22 @@
+-- Append-only stock ledger. Current stock is the snapshot kept on
+-- raw_materials plus the movements after stock_movement_id; StockCompactor
+-- periodically folds the movements into the snapshot.
+create table stock_movements (
+    id bigint generated always as identity primary key,
+    raw_material_id bigint not null references raw_materials on delete cascade,
+    kind varchar(16) not null,
+    quantity numeric(18,3) not null,
+    created_at timestamptz not null default now()
+);
+
+-- Pending movements of a material (id > snapshot) and its history, newest first.
+create index stock_movements_material_id_idx on stock_movements (raw_material_id, id);
+
+-- Movements folded into stock_quantity: the last one, and how many of them
+-- count towards the version exposed by the API (all but adjustments).
+alter table raw_materials
+    add column stock_movement_id bigint not null default 0,
+    add column stock_movement_count bigint not null default 0;
+
+-- raw_materials_stock_id_idx (V2) now indexes the snapshot, which the
+-- stockSnapshot sort uses.
@@ -0,0 +1,12 @@
+-- Version of the whole catalog behind the ETags and the production catalog
+-- snapshot. CatalogVersion bumps it as the last statement of every
+-- transaction that changes the catalog, so every instance sees a version
+-- together with the data it describes. Manual SQL on catalog tables
+-- should bump it too:
+--   update catalog_version set version = version + 1;
+create table catalog_version (
+    id boolean primary key default true check (id),
+    version bigint not null
+);
+
+insert into catalog_version (version) values (0);
@@ -3,7 +3,7 @@ package com.yago.inventory_api;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
 class InventoryApiApplicationTests {
 
 	@Test
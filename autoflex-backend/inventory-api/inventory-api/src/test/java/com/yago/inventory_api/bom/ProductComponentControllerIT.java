@@ -0,0 +1,77 @@
+package com.yago.inventory_api.bom;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductComponentControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldAddSubAssembliesAndRejectCycles() throws Exception {
+        String prefix = "PC" + System.nanoTime();
+        long cabinet = createProduct(prefix + "-C");
+        long table = createProduct(prefix + "-T");
+        long leg = createProduct(prefix + "-L");
+
+        long tableLine = create("/products/" + cabinet + "/components", component(table, "2"));
+        create("/products/" + table + "/components", component(leg, "4"));
+
+        mockMvc.perform(post("/products/{id}/components", leg)
+                .contentType(MediaType.APPLICATION_JSON).content(component(cabinet, "1")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Adding this component would create a cycle."));
+        mockMvc.perform(post("/products/{id}/components", leg)
+                .contentType(MediaType.APPLICATION_JSON).content(component(leg, "1")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/products/{id}/components", cabinet)
+                .contentType(MediaType.APPLICATION_JSON).content(component(table, "1")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Component already added to this product."));
+
+        mockMvc.perform(get("/products/{id}/components", cabinet))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].componentProductCode").value(prefix + "-T"))
+                .andExpect(jsonPath("$[0].requiredQuantity").value(2));
+
+        mockMvc.perform(delete("/products/{id}/components/{lineId}", cabinet, tableLine))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/products/{id}/components", leg)
+                .contentType(MediaType.APPLICATION_JSON).content(component(cabinet, "1")))
+                .andExpect(status().isCreated());
+    }
+
+    private long createProduct(String code) throws Exception {
+        return create("/products", """
+                { "code": "%s", "name": "Assembly", "price": 10.00 }
+                """.formatted(code));
+    }
+
+    private static String component(long componentProductId, String quantity) {
+        return """
+                { "componentProductId": %d, "requiredQuantity": %s }
+                """.formatted(componentProductId, quantity);
+    }
+
+    private long create(String path, String body) throws Exception {
+        String json = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json).get("id").asLong();
+    }
+}
@@ -0,0 +1,136 @@
+package com.yago.inventory_api.bom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductMaterialControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldReplaceWholeBom() throws Exception {
+        String prefix = "BR" + System.nanoTime();
+        long productId = create("/products", """
+                { "code": "%s-P", "name": "Desk", "price": 100.00 }
+                """.formatted(prefix));
+        long wood = create("/raw-materials", """
+                { "code": "%s-W", "name": "Wood", "stockQuantity": 10 }
+                """.formatted(prefix));
+        long screw = create("/raw-materials", """
+                { "code": "%s-S", "name": "Screw", "stockQuantity": 100 }
+                """.formatted(prefix));
+        long glue = create("/raw-materials", """
+                { "code": "%s-G", "name": "Glue", "stockQuantity": 5 }
+                """.formatted(prefix));
+
+        mockMvc.perform(put("/products/{id}/materials", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "requiredQuantity": 2 },
+                          { "rawMaterialId": %d, "requiredQuantity": 8 } ]
+                        """.formatted(wood, screw)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(put("/products/{id}/materials", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "requiredQuantity": 12 },
+                          { "rawMaterialId": %d, "requiredQuantity": 0.5 } ]
+                        """.formatted(screw, glue)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].rawMaterialId").value(screw))
+                .andExpect(jsonPath("$[0].requiredQuantity").value(12))
+                .andExpect(jsonPath("$[1].rawMaterialId").value(glue))
+                .andExpect(jsonPath("$[1].rawMaterialCode").value(prefix + "-G"));
+
+        mockMvc.perform(put("/products/{id}/materials", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "requiredQuantity": -1 } ]
+                        """.formatted(wood)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(put("/products/{id}/materials", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "requiredQuantity": 1 } ]
+                        """.formatted(Long.MAX_VALUE)))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/products/{id}/materials", productId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void shouldKeepErrorContractForSingleLineWrites() throws Exception {
+        String prefix = "BL" + System.nanoTime();
+        long productId = create("/products", """
+                { "code": "%s-P", "name": "Stool", "price": 30.00 }
+                """.formatted(prefix));
+        long wood = create("/raw-materials", """
+                { "code": "%s-W", "name": "Wood", "stockQuantity": 10 }
+                """.formatted(prefix));
+        String line = """
+                { "rawMaterialId": %d, "requiredQuantity": 3 }
+                """.formatted(wood);
+
+        long lineId = create("/products/" + productId + "/materials", line);
+
+        mockMvc.perform(post("/products/{id}/materials", productId)
+                .contentType(MediaType.APPLICATION_JSON).content(line))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Raw material already added to this product."));
+        mockMvc.perform(post("/products/{id}/materials", Long.MAX_VALUE)
+                .contentType(MediaType.APPLICATION_JSON).content(line))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Product not found."));
+        mockMvc.perform(post("/products/{id}/materials", productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "rawMaterialId": %d, "requiredQuantity": 3 }
+                        """.formatted(Long.MAX_VALUE)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Raw material not found."));
+
+        mockMvc.perform(put("/products/{id}/materials/{lineId}", productId, lineId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "requiredQuantity": 4 }
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requiredQuantity").value(4))
+                .andExpect(jsonPath("$.rawMaterialCode").value(prefix + "-W"));
+
+        mockMvc.perform(delete("/products/{id}/materials/{lineId}", productId, lineId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/products/{id}/materials/{lineId}", productId, lineId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Product material not found."));
+    }
+
+    private long create(String path, String body) throws Exception {
+        String json = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode node = objectMapper.readTree(json);
+        return node.get("id").asLong();
+    }
+}
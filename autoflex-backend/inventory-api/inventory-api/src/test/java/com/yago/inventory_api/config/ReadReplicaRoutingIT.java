@@ -0,0 +1,92 @@
+package com.yago.inventory_api.config;
+
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The replica is a second, unreplicated database with the same schema, so a
+ * read that reaches it does not see what was written to the primary.
+ */
+@SpringBootTest(properties = {
+        "datasource.replica.jdbc-url=" + ReadReplicaRoutingIT.REPLICA_URL,
+        "datasource.replica.username=inventory",
+        "datasource.replica.password=inventory",
+        "datasource.replica.maximum-pool-size=2",
+        "datasource.read-your-writes=1s",
+        "stock.compaction.interval=1h",
+        "production.warmup.enabled=false" })
+@AutoConfigureMockMvc
+class ReadReplicaRoutingIT {
+
+    static final String REPLICA_URL = "jdbc:postgresql://localhost:5434/inventory";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactions;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "inventory", "inventory").load().migrate();
+    }
+
+    @Test
+    void shouldSendReadOnlyTransactionsToTheReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactions.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        Integer readPort = readOnly.execute(status -> jdbc.queryForObject("select inet_server_port()", Integer.class));
+        Integer writePort = transactions.execute(status -> jdbc.queryForObject("select inet_server_port()",
+                Integer.class));
+
+        assertThat(readPort).isEqualTo(5434);
+        assertThat(writePort).isEqualTo(5433);
+    }
+
+    @Test
+    void shouldReadFromTheReplicaUnlessTheClientNeedsNewerData() throws Exception {
+        String code = "RR" + System.nanoTime();
+        Cookie readYourWrites = mockMvc.perform(post("/raw-materials")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "code": "%s", "name": "Material", "stockQuantity": 1 }
+                        """.formatted(code)))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().maxAge(ReadYourWritesInterceptor.COOKIE, 1))
+                .andReturn().getResponse().getCookie(ReadYourWritesInterceptor.COOKIE);
+
+        // the writer reads its own write from the primary
+        String etag = mockMvc.perform(get("/raw-materials").param("codePrefix", code).cookie(readYourWrites))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // other clients read the replica, tagged with the replica's version
+        mockMvc.perform(get("/raw-materials").param("codePrefix", code))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0))
+                .andExpect(header().string("ETag", not(etag)));
+
+        // a client holding a tag the replica has not reached is answered from the primary
+        mockMvc.perform(get("/raw-materials").param("codePrefix", code).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+}
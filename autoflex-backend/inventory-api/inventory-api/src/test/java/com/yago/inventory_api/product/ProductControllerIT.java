@@ -1,12 +1,18 @@
 package com.yago.inventory_api.product;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -17,6 +23,12 @@ class ProductControllerIT {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
     @Test
     void shouldCreateAndListProducts() throws Exception {
         mockMvc.perform(post("/products")
@@ -33,6 +45,27 @@ class ProductControllerIT {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    void shouldMapDuplicateCodeAndMissingDelete() throws Exception {
+        String body = """
+                { "code": "DUP%d", "name": "Duplicate", "price": 1.00 }
+                """.formatted(System.nanoTime());
+        String json = mockMvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = Long.parseLong(json.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        mockMvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Product code already exists"));
+
+        mockMvc.perform(delete("/products/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/products/{id}", id))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Product not found."));
+    }
+
     @Test
     void shouldReturn400WhenInvalidBody() throws Exception {
         mockMvc.perform(post("/products")
@@ -43,4 +76,132 @@ class ProductControllerIT {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPageProductsWithCursor() throws Exception {
+        String prefix = "PG" + System.nanoTime();
+        for (String price : new String[] { "30.00", "10.00", "20.00" }) {
+            mockMvc.perform(post("/products")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                              { "code": "%s-%s", "name": "Paged", "price": %s }
+                            """.formatted(prefix, price, price)))
+                    .andExpect(status().isCreated());
+        }
+
+        String cursor = mockMvc.perform(get("/products")
+                .param("codePrefix", prefix)
+                .param("sort", "price")
+                .param("direction", "desc")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].price").value(30.00))
+                .andExpect(jsonPath("$[1].price").value(20.00))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/products")
+                .param("codePrefix", prefix)
+                .param("sort", "price")
+                .param("direction", "desc")
+                .param("limit", "2")
+                .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].price").value(10.00))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void shouldReturn400ForUnknownSort() throws Exception {
+        mockMvc.perform(get("/products").param("sort", "weight"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+    }
+
+    @Test
+    void shouldImportCsvAndReportInvalidRows() throws Exception {
+        String prefix = "IM" + System.nanoTime();
+        String csv = """
+                code,name,price
+                %1$s-A,"Chair, oak",10.50
+                %1$s-B,Table,-3
+                %1$s-A,"Chair, pine",12.00
+                %1$s-C,Stool,7
+                """.formatted(prefix);
+
+        mockMvc.perform(post("/products/import")
+                .contentType("text/csv")
+                .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(4))
+                .andExpect(jsonPath("$.upserted").value(3))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].code").value(prefix + "-B"));
+
+        mockMvc.perform(get("/products").param("codePrefix", prefix).param("sort", "code"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Chair, pine"))
+                .andExpect(jsonPath("$[0].price").value(12.00));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedUntilCatalogChanges() throws Exception {
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                          { "code": "ET%d", "name": "Tagged", "price": 1.00 }
+                        """.formatted(System.nanoTime())))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void shouldSeeCatalogVersionBumpedByAnotherInstance() throws Exception {
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // what another instance, or manual SQL, does on commit
+        jdbc.update("update catalog_version set version = version + 1");
+        Thread.sleep(1_100);
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromSecondLevelCache() throws Exception {
+        String json = mockMvc.perform(post("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                          { "code": "L2%d", "name": "Cached", "price": 3.00 }
+                        """.formatted(System.nanoTime())))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = Long.parseLong(json.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        mockMvc.perform(get("/products/{id}", id)).andExpect(status().isOk());
+        mockMvc.perform(get("/products/{id}", id)).andExpect(status().isOk());
+
+        assertTrue(statistics.getSecondLevelCacheHitCount() > hits);
+    }
+}
@@ -0,0 +1,89 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.bom.ComponentLine;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BomFlattenerTest {
+
+    private static final long TABLE = 1, LEG = 2, CABINET = 3, SHELF = 4, BOARD = 5;
+    private static final long WOOD = 10, GLUE = 11;
+
+    @Test
+    void shouldExpandSubAssembliesAndRebuildOnlyAncestorsOfChangedProducts() {
+        BomFlattener flattener = new BomFlattener();
+        List<ComponentLine> components = List.of(
+                component(TABLE, LEG, "4"),
+                component(CABINET, TABLE, "2"),
+                component(SHELF, BOARD, "3"));
+
+        List<BomLine> first = flattener.flatten(List.of(
+                line(TABLE, WOOD, "1.000"),
+                line(LEG, WOOD, "0.500"),
+                line(BOARD, GLUE, "0.250")), components, null);
+
+        assertEquals(Map.of(WOOD, new BigDecimal("3.000")), required(first, TABLE));
+        assertEquals(Map.of(WOOD, new BigDecimal("6.000")), required(first, CABINET));
+        assertEquals(Map.of(GLUE, new BigDecimal("0.750")), required(first, SHELF));
+
+        List<BomLine> second = flattener.flatten(List.of(
+                line(TABLE, WOOD, "1.000"),
+                line(LEG, WOOD, "0.750"),
+                line(BOARD, GLUE, "0.250")), components, Set.of(LEG));
+
+        assertEquals(Map.of(WOOD, new BigDecimal("4.000")), required(second, TABLE));
+        assertEquals(Map.of(WOOD, new BigDecimal("8.000")), required(second, CABINET));
+        assertSame(lineOf(first, SHELF), lineOf(second, SHELF), "unrelated products keep their flattened BOM");
+    }
+
+    @Test
+    void shouldLeaveProductsOnACycleOrMissingASubAssemblyWithoutLines() {
+        List<BomLine> flattened = new BomFlattener().flatten(List.of(
+                line(TABLE, WOOD, "1"),
+                line(LEG, WOOD, "1"),
+                line(SHELF, GLUE, "1")),
+                List.of(component(TABLE, LEG, "1"), component(LEG, TABLE, "1"), component(SHELF, BOARD, "1")),
+                null);
+
+        assertTrue(required(flattened, TABLE).isEmpty());
+        assertTrue(required(flattened, LEG).isEmpty());
+        assertTrue(required(flattened, SHELF).isEmpty());
+    }
+
+    @Test
+    void shouldKeepComposedQuantitiesAtTheColumnScale() {
+        List<BomLine> flattened = new BomFlattener().flatten(List.of(
+                line(LEG, WOOD, "5.000"),
+                line(BOARD, GLUE, "0.125")),
+                List.of(component(TABLE, LEG, "4.000"), component(SHELF, BOARD, "0.500")),
+                null);
+
+        assertEquals("20.000", required(flattened, TABLE).get(WOOD).toString());
+        assertEquals("0.0625", required(flattened, SHELF).get(GLUE).toString());
+    }
+
+    private static Map<Long, BigDecimal> required(List<BomLine> lines, long productId) {
+        return lines.stream().filter(l -> l.getProductId() == productId)
+                .collect(Collectors.toMap(BomLine::getRawMaterialId, BomLine::getRequiredQuantity));
+    }
+
+    private static BomLine lineOf(List<BomLine> lines, long productId) {
+        return lines.stream().filter(l -> l.getProductId() == productId).findFirst().orElseThrow();
+    }
+
+    private static BomLine line(long productId, long rawMaterialId, String quantity) {
+        return new BomLine(productId, rawMaterialId, new BigDecimal(quantity));
+    }
+
+    private static ComponentLine component(long productId, long componentProductId, String quantity) {
+        return new ComponentLine(productId, componentProductId, new BigDecimal(quantity));
+    }
+}
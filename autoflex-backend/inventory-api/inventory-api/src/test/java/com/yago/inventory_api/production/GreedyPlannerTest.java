@@ -0,0 +1,145 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.product.Product;
+import com.yago.inventory_api.rawmaterial.RawMaterial;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreedyPlannerTest {
+
+    @Test
+    void scaledKernelShouldMatchBigDecimalKernel() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++) {
+            ProductionCatalog catalog = randomCatalog(random, 40, 15);
+
+            assertTrue(catalog.scaled);
+            assertArrayEquals(
+                    GreedyPlanner.planExact(catalog, catalog.stockCopy()),
+                    GreedyPlanner.planScaled(catalog, catalog.stockScaled.clone()));
+        }
+    }
+
+    @Test
+    void shouldFallBackToBigDecimalWhenValuesDoNotFitInLong() {
+        RawMaterial rm = rawMaterial(1L, new BigDecimal("123456789012345678901.500"));
+        Product p = product(1L, "1.00");
+
+        ProductionCatalog catalog = ProductionCatalog.compile(List.of(rm), List.of(p),
+                List.of(new BomLine(1L, 1L, new BigDecimal("0.001"))));
+
+        assertFalse(catalog.scaled);
+        assertArrayEquals(new int[] { new BigDecimal("123456789012345678901500").intValue() },
+                GreedyPlanner.plan(catalog));
+    }
+
+    @Test
+    void shouldTruncateQuotientLikeBigDecimalIntValue() {
+        RawMaterial rm = rawMaterial(1L, new BigDecimal("5000000000.000"));
+        Product p = product(1L, "1.00");
+
+        ProductionCatalog catalog = ProductionCatalog.compile(List.of(rm), List.of(p),
+                List.of(new BomLine(1L, 1L, new BigDecimal("1.000"))));
+
+        assertTrue(catalog.scaled);
+        assertArrayEquals(GreedyPlanner.planExact(catalog, catalog.stockCopy()), GreedyPlanner.plan(catalog));
+    }
+
+    @Test
+    void replanShouldMatchFullRecomputation() {
+        Random random = new Random(11);
+        List<RawMaterial> materials = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        List<BomLine> lines = new ArrayList<>();
+        ProductionCatalog catalog = randomCatalog(random, 60, 20, materials, products, lines);
+        GreedyPlan plan = GreedyPlanner.planFull(catalog);
+
+        for (int round = 0; round < 200; round++) {
+            if (random.nextBoolean()) {
+                int m = random.nextInt(catalog.materialCount());
+                catalog = catalog.withStock(Map.of(m, BigDecimal.valueOf(random.nextInt(1_000_000), 3)));
+            } else {
+                int i = random.nextInt(lines.size());
+                BomLine old = lines.get(i);
+                lines.set(i, new BomLine(old.getProductId(), old.getRawMaterialId(),
+                        BigDecimal.valueOf(1 + random.nextInt(20_000), 3)));
+                for (RawMaterial rm : materials) {
+                    rm.setStockQuantity(catalog.stock[catalog.materialIndexOf(rm.getId())]);
+                }
+                catalog = ProductionCatalog.compile(materials, products, lines);
+            }
+
+            GreedyPlan incremental = GreedyPlanner.replan(plan, catalog);
+            GreedyPlan full = GreedyPlanner.planFull(catalog);
+
+            assertArrayEquals(full.units, incremental.units);
+            assertArrayEquals(full.remainingStock, incremental.remainingStock);
+            plan = incremental;
+        }
+    }
+
+    @Test
+    void firstAffectedPositionShouldBeFirstUserOfChangedMaterial() {
+        ProductionCatalog catalog = ProductionCatalog.compile(
+                List.of(rawMaterial(1L, new BigDecimal("10")), rawMaterial(2L, new BigDecimal("10"))),
+                List.of(product(1L, "30.00"), product(2L, "20.00"), product(3L, "10.00")),
+                List.of(new BomLine(1L, 1L, BigDecimal.ONE), new BomLine(2L, 2L, BigDecimal.ONE),
+                        new BomLine(3L, 2L, BigDecimal.ONE)));
+
+        ProductionCatalog changed = catalog.withStock(Map.of(catalog.materialIndexOf(2L), new BigDecimal("4")));
+
+        assertEquals(1, GreedyPlanner.firstAffectedPosition(catalog, changed));
+        assertEquals(3, GreedyPlanner.firstAffectedPosition(catalog, catalog));
+    }
+
+    private ProductionCatalog randomCatalog(Random random, int productCount, int materialCount) {
+        return randomCatalog(random, productCount, materialCount, new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>());
+    }
+
+    private ProductionCatalog randomCatalog(Random random, int productCount, int materialCount,
+            List<RawMaterial> materials, List<Product> products, List<BomLine> lines) {
+        for (long id = 1; id <= materialCount; id++) {
+            materials.add(rawMaterial(id, BigDecimal.valueOf(random.nextInt(1_000_000), 3)));
+        }
+
+        for (long id = 1; id <= productCount; id++) {
+            products.add(product(id, BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString()));
+            for (long rmId = 1; rmId <= materialCount; rmId++) {
+                if (random.nextInt(4) == 0) {
+                    lines.add(new BomLine(id, rmId, BigDecimal.valueOf(1 + random.nextInt(20_000), 3)));
+                }
+            }
+        }
+        products.sort((a, b) -> b.getPrice().compareTo(a.getPrice()));
+
+        return ProductionCatalog.compile(materials, products, lines);
+    }
+
+    private RawMaterial rawMaterial(Long id, BigDecimal stock) {
+        RawMaterial rm = new RawMaterial();
+        rm.setId(id);
+        rm.setCode("RM" + id);
+        rm.setName("Material " + id);
+        rm.setStockQuantity(stock);
+        return rm;
+    }
+
+    private Product product(Long id, String price) {
+        Product p = new Product();
+        p.setId(id);
+        p.setCode("P" + id);
+        p.setName("Product " + id);
+        p.setPrice(new BigDecimal(price));
+        return p;
+    }
+}
@@ -0,0 +1,168 @@
+package com.yago.inventory_api.production;
+
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.product.Product;
+import com.yago.inventory_api.rawmaterial.RawMaterial;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimalPlannerTest {
+
+    private final OptimalPlanner planner = new OptimalPlanner();
+
+    @AfterEach
+    void tearDown() {
+        planner.shutdown();
+    }
+
+    @Test
+    void shouldBeatGreedyWhenExpensiveProductWastesSharedMaterial() {
+        ProductionCatalog catalog = ProductionCatalog.compile(
+                List.of(rawMaterial(1L, "10")),
+                List.of(product(1L, "100.00"), product(2L, "90.00")),
+                List.of(new BomLine(1L, 1L, new BigDecimal("6")), new BomLine(2L, 1L, new BigDecimal("5"))));
+
+        int[] greedy = GreedyPlanner.plan(catalog);
+        OptimalPlanner.Result result = planner.plan(catalog, greedy, 1_000);
+
+        assertArrayEquals(new int[] { 1, 0 }, greedy);
+        assertArrayEquals(new int[] { 0, 2 }, result.units);
+        assertTrue(result.optimal);
+    }
+
+    @Test
+    void shouldMatchExhaustiveSearchOnSmallCatalogs() {
+        Random random = new Random(7);
+
+        for (int round = 0; round < 30; round++) {
+            List<RawMaterial> materials = new ArrayList<>();
+            for (long id = 1; id <= 3; id++) {
+                materials.add(rawMaterial(id, String.valueOf(5 + random.nextInt(20))));
+            }
+
+            List<Product> products = new ArrayList<>();
+            List<BomLine> lines = new ArrayList<>();
+            for (long id = 1; id <= 4; id++) {
+                products.add(product(id, (10 + random.nextInt(90)) + ".00"));
+                for (long rmId = 1; rmId <= 3; rmId++) {
+                    if (random.nextInt(2) == 0 || rmId == id % 3 + 1) {
+                        lines.add(new BomLine(id, rmId, BigDecimal.valueOf(1 + random.nextInt(6))));
+                    }
+                }
+            }
+            products.sort((a, b) -> b.getPrice().compareTo(a.getPrice()));
+
+            ProductionCatalog catalog = ProductionCatalog.compile(materials, products, lines);
+            OptimalPlanner.Result result = planner.plan(catalog, GreedyPlanner.plan(catalog), 5_000);
+
+            assertTrue(result.optimal);
+            assertEquals(exhaustiveBest(catalog), value(catalog, result.units), 1e-6);
+        }
+    }
+
+    @Test
+    void shouldProveOptimalityWithLargeUnitCounts() {
+        Random random = new Random(11);
+
+        for (int round = 0; round < 5; round++) {
+            List<RawMaterial> materials = List.of(
+                    rawMaterial(1L, String.valueOf(500_000 + random.nextInt(500_000))));
+
+            List<Product> products = new ArrayList<>();
+            List<BomLine> lines = new ArrayList<>();
+            for (long id = 1; id <= 8; id++) {
+                products.add(product(id, (10 + random.nextInt(90)) + ".00"));
+                lines.add(new BomLine(id, 1L, BigDecimal.valueOf(1 + random.nextInt(20))));
+            }
+            products.sort((a, b) -> b.getPrice().compareTo(a.getPrice()));
+
+            ProductionCatalog catalog = ProductionCatalog.compile(materials, products, lines);
+            OptimalPlanner.Result result = planner.plan(catalog, GreedyPlanner.plan(catalog), 5_000);
+
+            // hundreds of thousands of units per product: unit-by-unit backtracking would time out
+            assertTrue(result.optimal);
+            assertEquals(knapsackBest(catalog), value(catalog, result.units), 1e-6);
+        }
+    }
+
+    /** Unbounded knapsack by dynamic programming, for single-material catalogs. */
+    private double knapsackBest(ProductionCatalog catalog) {
+        int capacity = (int) catalog.stockScaled[0];
+        double[] best = new double[capacity + 1];
+        for (int c = 1; c <= capacity; c++) {
+            best[c] = best[c - 1];
+            for (int p = 0; p < catalog.productCount(); p++) {
+                int weight = (int) catalog.bomRequiredScaled[catalog.bomOffsets[p]];
+                if (weight <= c) {
+                    best[c] = Math.max(best[c], best[c - weight] + catalog.prices[p].doubleValue());
+                }
+            }
+        }
+        return best[capacity];
+    }
+
+    private double exhaustiveBest(ProductionCatalog catalog) {
+        return exhaustive(catalog, 0, catalog.stockScaled.clone());
+    }
+
+    private double exhaustive(ProductionCatalog catalog, int p, long[] stock) {
+        if (p == catalog.productCount()) {
+            return 0;
+        }
+
+        double best = 0;
+        for (int units = 0;; units++) {
+            boolean feasible = true;
+            for (int line = catalog.bomOffsets[p]; line < catalog.bomOffsets[p + 1]; line++) {
+                feasible &= catalog.bomRequiredScaled[line] * units <= stock[catalog.bomMaterials[line]];
+            }
+            if (!feasible) {
+                break;
+            }
+
+            long[] rest = stock.clone();
+            for (int line = catalog.bomOffsets[p]; line < catalog.bomOffsets[p + 1]; line++) {
+                rest[catalog.bomMaterials[line]] -= catalog.bomRequiredScaled[line] * units;
+            }
+            best = Math.max(best, units * catalog.prices[p].doubleValue() + exhaustive(catalog, p + 1, rest));
+
+            if (catalog.bomOffsets[p] == catalog.bomOffsets[p + 1]) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    private double value(ProductionCatalog catalog, int[] units) {
+        double value = 0;
+        for (int p = 0; p < units.length; p++) {
+            value += units[p] * catalog.prices[p].doubleValue();
+        }
+        return value;
+    }
+
+    private RawMaterial rawMaterial(Long id, String stock) {
+        RawMaterial rm = new RawMaterial();
+        rm.setId(id);
+        rm.setCode("RM" + id);
+        rm.setName("Material " + id);
+        rm.setStockQuantity(new BigDecimal(stock));
+        return rm;
+    }
+
+    private Product product(Long id, String price) {
+        Product p = new Product();
+        p.setId(id);
+        p.setCode("P" + id);
+        p.setName("Product " + id);
+        p.setPrice(new BigDecimal(price));
+        return p;
+    }
+}
@@ -0,0 +1,140 @@
+package com.yago.inventory_api.production;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class ProductionControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldStreamSuggestionsAsNdjsonWithSummaryTrailer() throws Exception {
+        MvcResult started = mockMvc.perform(get("/production/suggestions").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertTrue(lines[lines.length - 1].startsWith("{\"totalValue\":"));
+        for (int i = 0; i < lines.length - 1; i++) {
+            assertTrue(lines[i].contains("\"productId\""));
+        }
+    }
+
+    @Test
+    void shouldReturn400ForUnknownStrategy() throws Exception {
+        mockMvc.perform(get("/production/suggestions").param("strategy", "random"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown planning strategy: random"));
+    }
+
+    @Test
+    void shouldReturn400ForOversizedOrderQuantity() throws Exception {
+        mockMvc.perform(post("/production/requirements")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "productId": 1, "quantity": 9223372036854775807 },
+                          { "productId": 1, "quantity": 9223372036854775807 } ]
+                        """))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRunPlanAsJob() throws Exception {
+        String json = mockMvc.perform(post("/production/plans").param("strategy", "optimal").param("budgetMs", "50"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.status").exists())
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(json).get("id").asText();
+
+        String status = "queued";
+        for (int i = 0; i < 100 && !status.equals("done"); i++) {
+            Thread.sleep(50);
+            json = mockMvc.perform(get("/production/plans/{id}", id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            status = objectMapper.readTree(json).get("status").asText();
+        }
+        assertEquals("done", status);
+        assertTrue(objectMapper.readTree(json).path("result").has("totalValue"));
+
+        mockMvc.perform(get("/production/plans/{id}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldPushSuggestionChangesToStreamSubscribers() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/production/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitEvents(stream, "event:suggestion", 1);
+
+        String prefix = "SSE" + System.nanoTime();
+        long rawMaterialId = create("/raw-materials", """
+                { "code": "%s-R", "name": "Oak", "stockQuantity": 9 }
+                """.formatted(prefix));
+        long productId = create("/products", """
+                { "code": "%s-P", "name": "Bench", "price": 12345.00 }
+                """.formatted(prefix));
+        create("/products/" + productId + "/materials", """
+                { "rawMaterialId": %d, "requiredQuantity": 3 }
+                """.formatted(rawMaterialId));
+
+        String body = awaitEvents(stream, "event:suggestion", 2);
+        assertTrue(body.contains("event:catalog"));
+        assertTrue(body.contains(prefix + "-P"));
+    }
+
+    private String awaitEvents(MvcResult stream, String marker, int count) throws Exception {
+        String body = "";
+        for (int i = 0; i < 100 && body.split(marker, -1).length - 1 < count; i++) {
+            Thread.sleep(50);
+            body = stream.getResponse().getContentAsString();
+        }
+        assertEquals(count, body.split(marker, -1).length - 1, body);
+        return body;
+    }
+
+    private long create(String path, String body) throws Exception {
+        String json = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json).get("id").asLong();
+    }
+
+    @Test
+    void shouldExposePlannerMetrics() throws Exception {
+        mockMvc.perform(get("/production/suggestions")).andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(metrics.contains("production_plan_seconds_count{strategy=\"greedy\"}"));
+        assertTrue(metrics.contains("production_plan_phase_seconds_count{phase=\"mapping\"}"));
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds_count"));
+        assertTrue(metrics.contains("hibernate_statements_total"));
+    }
+}
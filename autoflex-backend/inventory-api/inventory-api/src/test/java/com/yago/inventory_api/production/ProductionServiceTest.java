@@ -1,29 +1,41 @@
 package com.yago.inventory_api.production;
 
-import com.yago.inventory_api.bom.ProductMaterial;
+import com.yago.inventory_api.bom.BomLine;
+import com.yago.inventory_api.bom.ProductComponentRepository;
 import com.yago.inventory_api.bom.ProductMaterialRepository;
+import com.yago.inventory_api.common.etag.CatalogVersion;
+import com.yago.inventory_api.common.event.CatalogChangedEvent;
 import com.yago.inventory_api.product.Product;
 import com.yago.inventory_api.product.ProductRepository;
 import com.yago.inventory_api.rawmaterial.RawMaterial;
 import com.yago.inventory_api.rawmaterial.RawMaterialRepository;
+import com.yago.inventory_api.production.dto.ProductionOrderLineRequest;
+import com.yago.inventory_api.production.dto.ProductionRequirementsResponse;
+import com.yago.inventory_api.production.dto.ProductionScenarioRequest;
 import com.yago.inventory_api.production.dto.ProductionSuggestionResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class ProductionServiceTest {
 
+    private static final ProductionMetrics METRICS = new ProductionMetrics(new SimpleMeterRegistry());
+
+    private final CatalogVersion catalogVersion = mock(CatalogVersion.class);
+
     @Test
     void shouldPrioritizeHigherPriceAndConsumeStock() {
         ProductRepository productRepository = mock(ProductRepository.class);
         ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
         RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
 
-        ProductionService service = new ProductionService(productRepository, productMaterialRepository,
+        ProductionService service = newService(productRepository, productMaterialRepository,
                 rawMaterialRepository);
 
         RawMaterial rm1 = new RawMaterial();
@@ -48,20 +60,10 @@ class ProductionServiceTest {
 
         when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(p1, p2));
 
-        ProductMaterial p1m = new ProductMaterial();
-        p1m.setId(11L);
-        p1m.setProduct(p1);
-        p1m.setRawMaterial(rm1);
-        p1m.setRequiredQuantity(new BigDecimal("2"));
+        BomLine p1m = new BomLine(1L, 1L, new BigDecimal("2"));
+        BomLine p2m = new BomLine(2L, 1L, new BigDecimal("1"));
 
-        ProductMaterial p2m = new ProductMaterial();
-        p2m.setId(22L);
-        p2m.setProduct(p2);
-        p2m.setRawMaterial(rm1);
-        p2m.setRequiredQuantity(new BigDecimal("1"));
-
-        when(productMaterialRepository.findByProductId(1L)).thenReturn(List.of(p1m));
-        when(productMaterialRepository.findByProductId(2L)).thenReturn(List.of(p2m));
+        when(productMaterialRepository.findAllBomLines()).thenReturn(List.of(p1m, p2m));
 
         ProductionSuggestionResponse resp = service.suggest();
 
@@ -70,6 +72,7 @@ class ProductionServiceTest {
         assertEquals("P001", resp.items.get(0).productCode);
         assertEquals(5, resp.items.get(0).producibleQuantity);
         assertEquals(new BigDecimal("5000"), resp.totalValue);
+        verify(productMaterialRepository, never()).findByProductId(any());
     }
 
     @Test
@@ -78,7 +81,7 @@ class ProductionServiceTest {
         ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
         RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
 
-        ProductionService service = new ProductionService(productRepository, productMaterialRepository,
+        ProductionService service = newService(productRepository, productMaterialRepository,
                 rawMaterialRepository);
 
         when(rawMaterialRepository.findAll()).thenReturn(List.of());
@@ -90,11 +93,294 @@ class ProductionServiceTest {
         p.setPrice(new BigDecimal("10"));
 
         when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(p));
-        when(productMaterialRepository.findByProductId(1L)).thenReturn(List.of());
+        when(productMaterialRepository.findAllBomLines()).thenReturn(List.of());
 
         ProductionSuggestionResponse resp = service.suggest();
 
         assertTrue(resp.items.isEmpty());
         assertEquals(BigDecimal.ZERO, resp.totalValue);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReuseCatalogSnapshotUntilCatalogChanges() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
+        RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
+
+        ProductionCatalogProvider provider = new ProductionCatalogProvider(
+                new ProductionCatalogLoader(productRepository, productMaterialRepository,
+                        mock(ProductComponentRepository.class), rawMaterialRepository,
+                        catalogVersion, METRICS), catalogVersion, METRICS);
+        ProductionService service = new ProductionService(provider, new OptimalPlanner(), METRICS);
+
+        RawMaterial rm1 = new RawMaterial();
+        rm1.setId(1L);
+        rm1.setStockQuantity(new BigDecimal("10"));
+
+        Product p1 = new Product();
+        p1.setId(1L);
+        p1.setCode("P001");
+        p1.setName("Table");
+        p1.setPrice(new BigDecimal("50"));
+
+        when(rawMaterialRepository.findAll()).thenReturn(List.of(rm1));
+        when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(p1));
+        when(productMaterialRepository.findAllBomLines())
+                .thenReturn(List.of(new BomLine(1L, 1L, new BigDecimal("3"))));
+
+        assertEquals(3, service.suggest().items.get(0).producibleQuantity);
+        assertEquals(3, service.suggest().items.get(0).producibleQuantity);
+        verify(rawMaterialRepository, times(1)).findAll();
+
+        rm1.setStockQuantity(new BigDecimal("30"));
+        provider.onCatalogChanged(CatalogChangedEvent.rawMaterial(1L));
+
+        ProductionSuggestionResponse resp = service.suggest();
+
+        assertEquals(10, resp.items.get(0).producibleQuantity);
+        assertEquals(new BigDecimal("500"), resp.totalValue);
+        verify(rawMaterialRepository, times(2)).findAll();
+    }
+
+    @Test
+    void shouldReloadCatalogWhenAnotherInstanceChangedIt() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
+        RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
+        ProductionService service = newService(productRepository, productMaterialRepository,
+                rawMaterialRepository);
+
+        RawMaterial rm1 = new RawMaterial();
+        rm1.setId(1L);
+        rm1.setStockQuantity(new BigDecimal("10"));
+
+        Product p1 = new Product();
+        p1.setId(1L);
+        p1.setCode("P001");
+        p1.setName("Table");
+        p1.setPrice(new BigDecimal("50"));
+
+        when(rawMaterialRepository.findAll()).thenReturn(List.of(rm1));
+        when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(p1));
+        when(productMaterialRepository.findAllBomLines())
+                .thenReturn(List.of(new BomLine(1L, 1L, new BigDecimal("3"))));
+
+        assertEquals(3, service.suggest().items.get(0).producibleQuantity);
+
+        // no local event: the version in the database is all that moved
+        rm1.setStockQuantity(new BigDecimal("30"));
+        when(catalogVersion.current()).thenReturn(1L);
+        when(catalogVersion.replica()).thenReturn(1L);
+        when(catalogVersion.read()).thenReturn(1L);
+
+        assertEquals(10, service.suggest().items.get(0).producibleQuantity);
+        assertEquals(10, service.suggest().items.get(0).producibleQuantity);
+        verify(rawMaterialRepository, times(2)).findAll();
+    }
+
+    @Test
+    void shouldPatchStockWithoutReloadingCatalogWhenOnlyRawMaterialsChange() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
+        RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
+
+        ProductionCatalogProvider provider = new ProductionCatalogProvider(
+                new ProductionCatalogLoader(productRepository, productMaterialRepository,
+                        mock(ProductComponentRepository.class), rawMaterialRepository,
+                        catalogVersion, METRICS), catalogVersion, METRICS);
+        ProductionService service = new ProductionService(provider, new OptimalPlanner(), METRICS);
+
+        RawMaterial wood = new RawMaterial();
+        wood.setId(1L);
+        wood.setStockQuantity(new BigDecimal("10.000"));
+        RawMaterial steel = new RawMaterial();
+        steel.setId(2L);
+        steel.setStockQuantity(new BigDecimal("10.000"));
+
+        Product chair = new Product();
+        chair.setId(1L);
+        chair.setCode("P001");
+        chair.setName("Chair");
+        chair.setPrice(new BigDecimal("80.00"));
+        Product shelf = new Product();
+        shelf.setId(2L);
+        shelf.setCode("P002");
+        shelf.setName("Shelf");
+        shelf.setPrice(new BigDecimal("40.00"));
+
+        when(rawMaterialRepository.findAll()).thenReturn(List.of(wood, steel));
+        when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(chair, shelf));
+        when(productMaterialRepository.findAllBomLines()).thenReturn(List.of(
+                new BomLine(1L, 1L, new BigDecimal("2.000")),
+                new BomLine(2L, 1L, new BigDecimal("1.000")),
+                new BomLine(2L, 2L, new BigDecimal("5.000"))));
+
+        assertEquals(new BigDecimal("400.00"), service.suggest().totalValue);
+
+        RawMaterial restocked = new RawMaterial();
+        restocked.setId(1L);
+        restocked.setStockQuantity(new BigDecimal("12.000"));
+        when(rawMaterialRepository.findAllById(Set.of(1L))).thenReturn(List.of(restocked));
+        provider.onCatalogChanged(CatalogChangedEvent.rawMaterial(1L));
+
+        ProductionSuggestionResponse resp = service.suggest();
+
+        assertEquals(1, resp.items.size());
+        assertEquals(6, resp.items.get(0).producibleQuantity);
+        assertEquals(new BigDecimal("480.00"), resp.totalValue);
+        verify(rawMaterialRepository, times(1)).findAll();
+        verify(productRepository, times(1)).findAllByOrderByPriceDesc();
+    }
+
+    @Test
+    void shouldKeepPendingChangesWhenRefreshFails() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
+        RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
+
+        ProductionCatalogProvider provider = new ProductionCatalogProvider(
+                new ProductionCatalogLoader(productRepository, productMaterialRepository,
+                        mock(ProductComponentRepository.class), rawMaterialRepository,
+                        catalogVersion, METRICS), catalogVersion, METRICS);
+        ProductionService service = new ProductionService(provider, new OptimalPlanner(), METRICS);
+
+        RawMaterial wood = new RawMaterial();
+        wood.setId(1L);
+        wood.setStockQuantity(new BigDecimal("10"));
+
+        Product table = new Product();
+        table.setId(1L);
+        table.setCode("P001");
+        table.setName("Table");
+        table.setPrice(new BigDecimal("50"));
+
+        when(rawMaterialRepository.findAll()).thenReturn(List.of(wood));
+        when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(table));
+        when(productMaterialRepository.findAllBomLines())
+                .thenReturn(List.of(new BomLine(1L, 1L, new BigDecimal("2"))));
+
+        assertEquals(5, service.suggest().items.get(0).producibleQuantity);
+
+        when(rawMaterialRepository.findAllById(Set.of(1L))).thenThrow(new IllegalStateException("connection lost"));
+        provider.onCatalogChanged(CatalogChangedEvent.rawMaterial(1L));
+
+        assertThrows(IllegalStateException.class, service::suggest);
+
+        wood.setStockQuantity(new BigDecimal("4"));
+        assertEquals(2, service.suggest().items.get(0).producibleQuantity);
+    }
+
+    @Test
+    void shouldEvaluateScenariosOnOneSnapshotWithoutTouchingStock() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
+        RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
+
+        ProductionService service = newService(productRepository, productMaterialRepository,
+                rawMaterialRepository);
+
+        RawMaterial wood = new RawMaterial();
+        wood.setId(1L);
+        wood.setStockQuantity(new BigDecimal("10"));
+
+        Product chair = new Product();
+        chair.setId(1L);
+        chair.setCode("P001");
+        chair.setName("Chair");
+        chair.setPrice(new BigDecimal("80"));
+        Product stool = new Product();
+        stool.setId(2L);
+        stool.setCode("P002");
+        stool.setName("Stool");
+        stool.setPrice(new BigDecimal("30"));
+
+        when(rawMaterialRepository.findAll()).thenReturn(List.of(wood));
+        when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(chair, stool));
+        when(productMaterialRepository.findAllBomLines()).thenReturn(List.of(
+                new BomLine(1L, 1L, new BigDecimal("2")),
+                new BomLine(2L, 1L, new BigDecimal("1"))));
+
+        ProductionScenarioRequest asIs = new ProductionScenarioRequest();
+
+        ProductionScenarioRequest delivery = new ProductionScenarioRequest();
+        ProductionScenarioRequest.StockOverride more = new ProductionScenarioRequest.StockOverride();
+        more.rawMaterialId = 1L;
+        more.delta = new BigDecimal("4");
+        delivery.stockOverrides.add(more);
+
+        ProductionScenarioRequest stoolPriceUp = new ProductionScenarioRequest();
+        ProductionScenarioRequest.PriceOverride price = new ProductionScenarioRequest.PriceOverride();
+        price.productId = 2L;
+        price.price = new BigDecimal("100");
+        stoolPriceUp.priceOverrides.add(price);
+
+        List<ProductionSuggestionResponse> results = service.evaluateScenarios(
+                List.of(asIs, delivery, stoolPriceUp), PlanningStrategy.GREEDY, 0);
+
+        assertEquals(new BigDecimal("400"), results.get(0).totalValue);
+        assertEquals(7, results.get(1).items.get(0).producibleQuantity);
+        assertEquals("P002", results.get(2).items.get(0).productCode);
+        assertEquals(new BigDecimal("1000"), results.get(2).totalValue);
+
+        assertEquals(new BigDecimal("400"), service.suggest().totalValue);
+        verify(rawMaterialRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldComputeOrderRequirementsAndShortfall() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductMaterialRepository productMaterialRepository = mock(ProductMaterialRepository.class);
+        RawMaterialRepository rawMaterialRepository = mock(RawMaterialRepository.class);
+
+        ProductionService service = newService(productRepository, productMaterialRepository,
+                rawMaterialRepository);
+
+        RawMaterial wood = new RawMaterial();
+        wood.setId(1L);
+        wood.setStockQuantity(new BigDecimal("10.000"));
+        RawMaterial screws = new RawMaterial();
+        screws.setId(2L);
+        screws.setStockQuantity(new BigDecimal("100.000"));
+
+        Product chair = new Product();
+        chair.setId(1L);
+        chair.setPrice(new BigDecimal("80"));
+        Product table = new Product();
+        table.setId(2L);
+        table.setPrice(new BigDecimal("200"));
+
+        when(rawMaterialRepository.findAll()).thenReturn(List.of(wood, screws));
+        when(productRepository.findAllByOrderByPriceDesc()).thenReturn(List.of(table, chair));
+        when(productMaterialRepository.findAllBomLines()).thenReturn(List.of(
+                new BomLine(1L, 1L, new BigDecimal("1.500")),
+                new BomLine(1L, 2L, new BigDecimal("8.000")),
+                new BomLine(2L, 1L, new BigDecimal("4.000"))));
+
+        ProductionRequirementsResponse resp = service.requirements(List.of(
+                orderLine(1L, 4), orderLine(2L, 1), orderLine(1L, 2)));
+
+        assertFalse(resp.feasible);
+        assertEquals(2, resp.requirements.size());
+        assertEquals(0, new BigDecimal("13").compareTo(resp.requirements.get(0).requiredQuantity));
+        assertEquals(0, new BigDecimal("3").compareTo(resp.requirements.get(0).shortfall));
+        assertEquals(0, new BigDecimal("48").compareTo(resp.requirements.get(1).requiredQuantity));
+        assertEquals(0, resp.requirements.get(1).shortfall.signum());
+        assertTrue(resp.productsWithoutBom.isEmpty());
+    }
+
+    private static ProductionOrderLineRequest orderLine(long productId, long quantity) {
+        ProductionOrderLineRequest line = new ProductionOrderLineRequest();
+        line.productId = productId;
+        line.quantity = quantity;
+        return line;
+    }
+
+    private ProductionService newService(ProductRepository productRepository,
+            ProductMaterialRepository productMaterialRepository, RawMaterialRepository rawMaterialRepository) {
+        return new ProductionService(new ProductionCatalogProvider(
+                new ProductionCatalogLoader(productRepository, productMaterialRepository,
+                        mock(ProductComponentRepository.class), rawMaterialRepository,
+                        catalogVersion, METRICS), catalogVersion, METRICS),
+                new OptimalPlanner(), METRICS);
+    }
+}
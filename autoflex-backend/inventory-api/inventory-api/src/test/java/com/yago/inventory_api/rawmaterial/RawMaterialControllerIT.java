@@ -0,0 +1,152 @@
+package com.yago.inventory_api.rawmaterial;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RawMaterialControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StockCompactor compactor;
+
+    @Test
+    void shouldConsumeAllOrNothing() throws Exception {
+        String prefix = "CS" + System.nanoTime();
+        long steel = create(prefix + "-S", "10");
+        long paint = create(prefix + "-P", "1.5");
+
+        mockMvc.perform(post("/raw-materials/consume")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "quantity": 4 },
+                          { "rawMaterialId": %d, "quantity": 1 },
+                          { "rawMaterialId": %d, "quantity": 2 } ]
+                        """.formatted(steel, paint, steel)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].stockQuantity").value(4))
+                .andExpect(jsonPath("$[0].version").value(1))
+                .andExpect(jsonPath("$[1].stockQuantity").value(0.5));
+
+        mockMvc.perform(post("/raw-materials/consume")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "quantity": 4 },
+                          { "rawMaterialId": %d, "quantity": 1 } ]
+                        """.formatted(steel, paint)))
+                .andExpect(status().isConflict());
+
+        // stock_movements.quantity is numeric(18,3): more decimals would be rounded by the insert only
+        mockMvc.perform(post("/raw-materials/consume")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "quantity": 0.0004 } ]
+                        """.formatted(steel)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/raw-materials/{id}", steel))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity").value(4));
+    }
+
+    @Test
+    void shouldRejectUpdateWithStaleVersion() throws Exception {
+        long id = create("VS" + System.nanoTime(), "3");
+
+        mockMvc.perform(put("/raw-materials/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "name": "Renamed", "stockQuantity": 5, "version": 0 }
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put("/raw-materials/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "name": "Stale", "stockQuantity": 1, "version": 0 }
+                        """))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldKeepStockAndVersionAcrossLedgerCompaction() throws Exception {
+        long id = create("LG" + System.nanoTime(), "10");
+
+        mockMvc.perform(post("/raw-materials/receive")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "quantity": 2.5 } ]
+                        """.formatted(id)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stockQuantity").value(12.5))
+                .andExpect(jsonPath("$[0].version").value(1));
+        mockMvc.perform(post("/raw-materials/consume")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "quantity": 4 } ]
+                        """.formatted(id)))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/raw-materials/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "name": "Counted", "stockQuantity": 8, "version": 2 }
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3));
+
+        compactor.compact();
+
+        mockMvc.perform(get("/raw-materials/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity").value(8))
+                .andExpect(jsonPath("$.version").value(3));
+        mockMvc.perform(post("/raw-materials/receive")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "quantity": 1 } ]
+                        """.formatted(id)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stockQuantity").value(9))
+                .andExpect(jsonPath("$[0].version").value(4));
+
+        mockMvc.perform(get("/raw-materials/{id}/movements", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].kind").value(contains("RECEIPT", "ADJUSTMENT", "CONSUMPTION", "RECEIPT")))
+                .andExpect(jsonPath("$[1].quantity").value(-0.5));
+
+        mockMvc.perform(post("/raw-materials/receive")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [ { "rawMaterialId": %d, "quantity": 1 } ]
+                        """.formatted(Long.MAX_VALUE)))
+                .andExpect(status().isNotFound());
+    }
+
+    private long create(String code, String stock) throws Exception {
+        String json = mockMvc.perform(post("/raw-materials")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "code": "%s", "name": "Material", "stockQuantity": %s }
+                        """.formatted(code, stock)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json).get("id").asLong();
+    }
+}